@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.ValidationService;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.storage.db.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.MpaRowMapper;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * H2 в памяти, заполненная данными заданного объёма, и собранные вручную хранилища и сервисы.
+ * Лайки и дружбы раздаются только первой половине пользователей,
+ * вторая половина остаётся свободной для бенчмарков записи.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    private static final int GENRES = 6;
+    private static final int MPA = 5;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param("10000")
+    public int films;
+
+    @Param("2000")
+    public int users;
+
+    @Param("20")
+    public int likesPerFilm;
+
+    @Param("50")
+    public int friendsPerUser;
+
+    JdbcTemplate jdbc;
+    FilmDbStorage filmStorage;
+    UserDbStorage userStorage;
+    FilmService filmService;
+    UserService userService;
+    ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:bench" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        seed(new Random(42));
+
+        filmStorage = new FilmDbStorage(jdbc, new FilmRowMapper(), new FilmPopularityIndex(), new LikeMatrixIndex(),
+                new FilmSearchIndex(), new ChangeVersions());
+        // Лайки засеяны напрямую в таблицу, счётчики в films выставляет сверка
+        filmStorage.reconcileLikeCounts(10_000);
+        filmStorage.loadIndexes();
+        userStorage = new UserDbStorage(jdbc, new UserRowMapper(), new FriendGraphIndex(), new ChangeVersions());
+        userStorage.loadFriendGraph();
+        MpaDbStorage mpaStorage = new MpaDbStorage(jdbc, new MpaRowMapper());
+        GenreDbStorage genreStorage = new GenreDbStorage(jdbc, new GenreRowMapper());
+        ValidationService validationService = new ValidationService(userStorage, filmStorage, mpaStorage, genreStorage);
+        LikeWriteBehindBuffer likeBuffer = new LikeWriteBehindBuffer(filmStorage, false, 1, 1,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), 1, Duration.ofSeconds(1));
+        filmService = new FilmService(filmStorage, validationService, genreStorage, likeBuffer);
+        userService = new UserService(userStorage, validationService);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    private void seed(Random random) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= users; id++) {
+            rows.add(new Object[]{id, "user" + id + "@mail.ru", "user" + id, "User " + id,
+                    Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(id % 15000))});
+        }
+        batch("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", rows);
+
+        for (long id = 1; id <= films; id++) {
+            rows.add(new Object[]{id, "Film " + id, "Description of film " + id,
+                    Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(id % 25000)), 60 + id % 120, 1 + id % MPA});
+        }
+        batch("INSERT INTO films (id, name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?, ?)",
+                rows);
+
+        for (long id = 1; id <= films; id++) {
+            int first = random.nextInt(GENRES);
+            rows.add(new Object[]{id, 1 + first});
+            if (id % 2 == 0) {
+                rows.add(new Object[]{id, 1 + (first + 1) % GENRES});
+            }
+        }
+        batch("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", rows);
+
+        int activeUsers = Math.max(1, users / 2);
+        for (long id = 1; id <= films; id++) {
+            // Степенное распределение: немногие фильмы собирают большую часть лайков.
+            int likes = (int) Math.min(activeUsers, likesPerFilm * 10L / (1 + id % 50));
+            int start = random.nextInt(activeUsers);
+            for (int i = 0; i < likes; i++) {
+                rows.add(new Object[]{id, 1L + (start + i) % activeUsers});
+            }
+        }
+        batch("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", rows);
+
+        for (long id = 1; id <= activeUsers; id++) {
+            int friends = Math.min(activeUsers - 1, friendsPerUser);
+            for (int i = 1; i <= friends; i++) {
+                rows.add(new Object[]{id, 1L + (id - 1 + i) % activeUsers});
+            }
+        }
+        batch("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", rows);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+        rows.clear();
+    }
+}
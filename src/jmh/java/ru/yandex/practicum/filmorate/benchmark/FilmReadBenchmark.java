@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmReadBenchmark {
+
+    @Benchmark
+    public List<Film> popularFilms(BenchmarkDatabase db) {
+        return db.filmService.getMostPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> allFilmsWithGenres(BenchmarkDatabase db) {
+        return db.filmService.getFilms();
+    }
+
+    @Benchmark
+    public List<Film> allFilmsRowMapping(BenchmarkDatabase db) {
+        return db.filmStorage.getAll();
+    }
+
+    @Benchmark
+    public List<Film> recommendations(BenchmarkDatabase db) {
+        return db.filmService.getRecommendations(1, 10);
+    }
+
+    @Benchmark
+    public List<User> commonFriends(BenchmarkDatabase db) {
+        return db.userService.getAllUsersCommonFriends(1, 2);
+    }
+}
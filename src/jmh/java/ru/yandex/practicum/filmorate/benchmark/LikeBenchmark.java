@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пара лайк + снятие лайка, чтобы объём таблицы likes не менялся между итерациями.
+ * Лайки ставят пользователи из второй половины, у которых нет лайков в исходных данных.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LikeBenchmark {
+    private long step;
+
+    @Benchmark
+    public void likeAndUnlike(BenchmarkDatabase db) {
+        step++;
+        long filmId = 1 + step % db.films;
+        long userId = db.users / 2 + 1 + step % Math.max(1, db.users - db.users / 2);
+        db.filmService.addLikeToFilm(filmId, userId);
+        db.filmService.removeLikeFromFilm(filmId, userId);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.index.ConcurrentLongSetMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена копирования при записи в ConcurrentLongSetMap: лайк и снятие лайка фильма,
+ * у которого уже есть likers лайков. Значение вставляется в середину массива.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LikeSetBenchmark {
+    private static final long FILM_ID = 1;
+
+    @Param({"100", "10000", "1000000"})
+    public int likers;
+
+    private ConcurrentLongSetMap usersByFilm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long[] users = new long[likers];
+        for (int i = 0; i < likers; i++) {
+            users[i] = 2L * i;
+        }
+        usersByFilm = new ConcurrentLongSetMap();
+        usersByFilm.put(FILM_ID, users);
+    }
+
+    @Benchmark
+    public boolean likeAndUnlike() {
+        long userId = likers | 1;
+        usersByFilm.add(FILM_ID, userId);
+        return usersByFilm.remove(FILM_ID, userId);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.CachingDictionaryStorage;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.db.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.MpaDbStorage;
+
+@Configuration
+@Profile("!inmemory")
+public class DictionaryCacheConfig {
+
+    @Bean(initMethod = "refresh")
+    @Primary
+    public CachingDictionaryStorage<Mpa> mpaStorage(MpaDbStorage mpaDbStorage, ChangeVersions versions) {
+        return new CachingDictionaryStorage<>("mpa", mpaDbStorage, Mpa::getId,
+                () -> versions.dictionaryChanged(ChangeVersions.Aggregate.MPA));
+    }
+
+    @Bean(initMethod = "refresh")
+    @Primary
+    public CachingDictionaryStorage<Genre> genreStorage(GenreDbStorage genreDbStorage, ChangeVersions versions) {
+        return new CachingDictionaryStorage<>("genres", genreDbStorage, Genre::getId,
+                () -> versions.dictionaryChanged(ChangeVersions.Aggregate.GENRES));
+    }
+}
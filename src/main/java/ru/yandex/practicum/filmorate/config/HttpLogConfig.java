@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Strategy;
+
+import java.time.Duration;
+
+/**
+ * Выборочное асинхронное логирование HTTP-обменов вместо синхронной записи каждого запроса.
+ * Включается свойством filmorate.http-log.mode=sampled, тела обрезаются через
+ * logbook.write.max-body-size. Отобранные обмены пишутся на уровне INFO.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.http-log.mode", havingValue = "sampled")
+public class HttpLogConfig {
+
+    @Bean
+    public Strategy sampledHttpLogStrategy(
+            @Value("${filmorate.http-log.sample-rate:0.01}") double sampleRate,
+            @Value("${filmorate.http-log.slow-threshold:PT0.5S}") Duration slowThreshold) {
+        log.info("HTTP-обмены пишутся выборочно: доля {}, медленные от {}", sampleRate, slowThreshold);
+        return new SampledHttpLogStrategy(sampleRate, slowThreshold);
+    }
+
+    // Стандартный writer Logbook пишет на уровне TRACE, а отбор уже сделан стратегией
+    @Bean
+    public HttpLogWriter sampledHttpLogWriter() {
+        Logger httpLog = LoggerFactory.getLogger(Logbook.class);
+        return new HttpLogWriter() {
+            @Override
+            public boolean isActive() {
+                return httpLog.isInfoEnabled();
+            }
+
+            @Override
+            public void write(Precorrelation precorrelation, String request) {
+                httpLog.info(request);
+            }
+
+            @Override
+            public void write(Correlation correlation, String response) {
+                httpLog.info(response);
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public SampledHttpLogSink sampledHttpLogSink(
+            HttpLogFormatter formatter,
+            HttpLogWriter writer,
+            @Value("${filmorate.http-log.queue-capacity:1024}") int capacity) {
+        return new SampledHttpLogSink(formatter, writer, capacity);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Потоковые и массовые запросы не проходят через Logbook: он копирует тела в память,
+ * и выгрузка каталога или загрузка NDJSON оказались бы там целиком. Отдельные пути исключаются
+ * в logbook.predicate.exclude, а GET /films?stream=true отличается от обычного списка только
+ * параметром, поэтому исключается здесь.
+ */
+@Configuration
+public class LogbookConfig {
+
+    // Имя совпадает с бином автоконфигурации, исключения из свойств добавляются к этому условию
+    @Bean
+    public Predicate<HttpRequest> requestCondition() {
+        return request -> !isCatalogStream(request);
+    }
+
+    static boolean isCatalogStream(HttpRequest request) {
+        return "GET".equals(request.getMethod())
+                && "/films".equals(request.getPath())
+                && Arrays.asList(request.getQuery().split("&")).contains("stream=true");
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Sink для Logbook, который пишет отобранные {@link SampledHttpLogStrategy} обмены в фоне.
+ * Записи форматируются в потоке запроса (после ответа servlet-объекты переиспользуются),
+ * а пишутся фоновым потоком из ограниченной очереди. Если очередь заполнена, запись отбрасывается
+ * и запрос не ждёт.
+ */
+@Slf4j
+public class SampledHttpLogSink implements Sink, AutoCloseable {
+    static final String DROPPED_COUNTER_NAME = "filmorate.http.log.dropped";
+    static final String PENDING_GAUGE_NAME = "filmorate.http.log.pending";
+
+    private final HttpLogFormatter formatter;
+    private final HttpLogWriter writer;
+    private final BlockingQueue<Entry> queue;
+    private final Counter dropped;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public SampledHttpLogSink(HttpLogFormatter formatter,
+                              HttpLogWriter writer,
+                              int capacity) {
+        this.formatter = formatter;
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropped = Counter.builder(DROPPED_COUNTER_NAME)
+                .description("HTTP-записи, отброшенные из-за переполненной очереди")
+                .register(Metrics.globalRegistry);
+        Gauge.builder(PENDING_GAUGE_NAME, queue, BlockingQueue::size)
+                .description("HTTP-записи, ожидающие записи в лог")
+                .register(Metrics.globalRegistry);
+        this.worker = new Thread(this::writeLoop, "http-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public boolean isActive() {
+        return writer.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) {
+        // Запрос пишется вместе с ответом, когда уже известны статус и длительность.
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        writeBoth(correlation, request, response);
+    }
+
+    @Override
+    public void writeBoth(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        Entry entry = new Entry(correlation, formatter.format(correlation, request),
+                formatter.format(correlation, response));
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    int getPending() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(1000);
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::writeEntry);
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                writeEntry(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeEntry(Entry entry) {
+        try {
+            writer.write((Precorrelation) entry.correlation(), entry.request());
+            writer.write(entry.correlation(), entry.response());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать HTTP-обмен {} в лог", entry.correlation().getId(), e);
+        }
+    }
+
+    private record Entry(Correlation correlation, String request, String response) {
+    }
+}
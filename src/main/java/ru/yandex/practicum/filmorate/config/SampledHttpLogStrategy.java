@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Стратегия Logbook для выборочного логирования. Решение о выборке принимается до обработки запроса:
+ * тела запроса и ответа буферизуются только у попавших в выборку обменов, остальные проходят без копирования.
+ * После ответа в sink передаются обмены из выборки, а также все ошибки (статус 400 и выше)
+ * и медленные запросы - последние без тел, если в выборку не попали.
+ */
+public class SampledHttpLogStrategy implements Strategy {
+    // Logbook вызывает оба process(...) в потоке запроса до передачи его дальше по цепочке фильтров
+    private final ThreadLocal<Boolean> decision = new ThreadLocal<>();
+    // Запрос, переданный в process(request, response), тот же объект, что потом приходит в write(...)
+    private final Set<HttpRequest> sampled = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+    private final double sampleRate;
+    private final Duration slowThreshold;
+
+    public SampledHttpLogStrategy(double sampleRate, Duration slowThreshold) {
+        this.sampleRate = sampleRate;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        boolean inSample = ThreadLocalRandom.current().nextDouble() < sampleRate;
+        decision.set(inSample);
+        return inSample ? request.withBody() : request.withoutBody();
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        boolean inSample = Boolean.TRUE.equals(decision.get());
+        decision.remove();
+        if (!inSample) {
+            return response.withoutBody();
+        }
+        sampled.add(request);
+        return response.withBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // Запрос пишется вместе с ответом, когда уже известны статус и длительность.
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response,
+                      Sink sink) throws IOException {
+        boolean inSample = sampled.remove(request);
+        if (inSample || isNotable(response.getStatus(), correlation.getDuration())) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    boolean isNotable(int status, Duration duration) {
+        return status >= 400 || duration.compareTo(slowThreshold) >= 0;
+    }
+}
@@ -1,13 +1,28 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityFeed;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -17,6 +32,10 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final FilmImportService filmImportService;
+    private final ObjectMapper objectMapper;
+    private final ChangeVersions versions;
+    private final PopularityFeed popularityFeed;
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
@@ -25,6 +44,36 @@ public class FilmController {
         return filmService.getFilms();
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        log.info("Потоковый запрос коллекции фильмов");
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.writeStartArray();
+            filmService.streamFilms(film -> writeFilm(generator, film));
+            generator.writeEndArray();
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public Page<Film> getFilmsPage(@RequestParam int limit,
+                                   @RequestParam(required = false) String cursor) {
+        log.info("Запрос страницы фильмов, limit={}", limit);
+        return filmService.getFilmsPage(cursor, limit);
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetResult<Film> getFilmsByIds(@RequestParam List<Long> ids) {
+        log.info("Запрос фильмов по списку id, количество={}", ids.size());
+        return filmService.getFilmsByIds(ids);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Film createFilm(@Valid @RequestBody Film film) {
@@ -32,6 +81,23 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importFilms(InputStream body) {
+        log.info("Запрос на пакетную загрузку фильмов");
+        StreamingResponseBody response = out -> filmImportService.importFilms(body, result -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(result));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(response);
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public Film updateFilm(@Valid @RequestBody Film film) {
@@ -40,9 +106,11 @@ public class FilmController {
     }
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Film getFilm(@PathVariable long id) {
+    public Film getFilm(@PathVariable long id, WebRequest request) {
         log.info("Запрос фильма с id={}", id);
+        if (request.checkNotModified(versions.filmTag(id))) {
+            return null;
+        }
         return filmService.getFilm(id);
     }
 
@@ -61,9 +129,41 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
+    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") int count,
+                                      @RequestParam(value = "from", defaultValue = "0") int from,
+                                      @RequestParam(required = false) Integer genreId,
+                                      @RequestParam(required = false) Integer year,
+                                      WebRequest request) {
+        log.info("Запрос на получение списка популярных фильмов, genreId={}, year={}", genreId, year);
+        // Некорректный запрос должен получить 400, даже если у клиента есть актуальный тег
+        filmService.validatePopularRange(count, from);
+        if (request.checkNotModified(versions.tag(ChangeVersions.Aggregate.FILMS, ChangeVersions.Aggregate.LIKES,
+                ChangeVersions.Aggregate.GENRES, ChangeVersions.Aggregate.MPA))) {
+            return null;
+        }
+        return filmService.getMostPopularFilms(count, from, genreId, year);
+    }
+
+    @GetMapping(value = "/popular/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPopularFilms(@RequestParam(value = "count", defaultValue = "10") int count) {
+        log.info("Подписка на изменения рейтинга популярных фильмов, count={}", count);
+        return popularityFeed.subscribe(count);
+    }
+
+    @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public List<Film> getPopularFilms(@RequestParam(value = "count", defaultValue = "10") int count) {
-        log.info("Запрос на получение списка популярных фильмов");
-        return filmService.getMostPopularFilms(count);
+    public List<Film> searchFilms(@RequestParam String q,
+                                  @RequestParam(value = "count", defaultValue = "10") int count,
+                                  @RequestParam(value = "from", defaultValue = "0") int from) {
+        log.info("Запрос на поиск фильмов по строке '{}'", q);
+        return filmService.searchFilms(q, count, from);
+    }
+
+    private void writeFilm(JsonGenerator generator, Film film) {
+        try {
+            generator.writeObject(film);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -3,10 +3,11 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 
 import java.util.List;
 
@@ -17,18 +18,23 @@ import java.util.List;
 public class GenreController {
 
     private final GenreService genreService;
+    private final ChangeVersions versions;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<Genre> getGenres() {
+    public List<Genre> getGenres(WebRequest request) {
         log.info("Запрос жанра");
+        if (request.checkNotModified(versions.tag(ChangeVersions.Aggregate.GENRES))) {
+            return null;
+        }
         return genreService.getAll();
     }
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Genre getGenrе(@PathVariable int id) {
+    public Genre getGenrе(@PathVariable int id, WebRequest request) {
         log.info("Запрос жанра с id = {}", id);
+        if (request.checkNotModified(versions.tag(ChangeVersions.Aggregate.GENRES))) {
+            return null;
+        }
         return genreService.getGenre(id);
     }
 }
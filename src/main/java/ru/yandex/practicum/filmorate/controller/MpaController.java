@@ -2,10 +2,11 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 
 import java.util.List;
 
@@ -15,18 +16,23 @@ import java.util.List;
 @Slf4j
 public class MpaController {
     private final MpaService mpaService;
+    private final ChangeVersions versions;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<Mpa> getMpa() {
+    public List<Mpa> getMpa(WebRequest request) {
         log.info("Запрос mpa");
+        if (request.checkNotModified(versions.tag(ChangeVersions.Aggregate.MPA))) {
+            return null;
+        }
         return mpaService.getMpa();
     }
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Mpa getMpaById(@PathVariable int id) {
+    public Mpa getMpaById(@PathVariable int id, WebRequest request) {
         log.info("Запрос mpa с id = {}", id);
+        if (request.checkNotModified(versions.tag(ChangeVersions.Aggregate.MPA))) {
+            return null;
+        }
         return mpaService.getMpaById(id);
     }
 
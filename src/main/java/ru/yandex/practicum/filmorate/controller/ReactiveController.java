@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.MpaService;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+
+/**
+ * Эндпоинты чтения с асинхронной отдачей. Запросы к базе остаются блокирующими JDBC-вызовами,
+ * но идут на пуле boundedElastic, и поток запроса на это время освобождается.
+ * Списки отдаются как application/x-ndjson и читаются из базы страницами по мере записи клиенту.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/reactive")
+@Slf4j
+public class ReactiveController {
+
+    private final ReactiveFilmService filmService;
+    private final ReactiveUserService userService;
+    private final GenreService genreService;
+    private final MpaService mpaService;
+
+    @GetMapping(value = "/films", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Film> getFilms() {
+        log.info("Реактивный запрос коллекции фильмов");
+        return filmService.getFilms();
+    }
+
+    @GetMapping("/films/{id}")
+    public Mono<Film> getFilm(@PathVariable long id) {
+        log.info("Реактивный запрос фильма с id = {}", id);
+        return filmService.getFilm(id);
+    }
+
+    @GetMapping(value = "/films/popular",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count,
+                                      @RequestParam(defaultValue = "0") int from,
+                                      @RequestParam(required = false) Integer genreId,
+                                      @RequestParam(required = false) Integer year) {
+        log.info("Реактивный запрос популярных фильмов, count={}, from={}", count, from);
+        return filmService.getMostPopularFilms(count, from, genreId, year);
+    }
+
+    @GetMapping(value = "/users/{id}/friends",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<User> getAllUsersFriends(@PathVariable long id) {
+        log.info("Реактивный запрос друзей пользователя {}", id);
+        return userService.getAllUsersFriends(id);
+    }
+
+    // Справочники отдаются из кеша в памяти, к базе запрос не идёт
+    @GetMapping(value = "/genres", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Genre> getGenres() {
+        log.info("Реактивный запрос жанров");
+        return Flux.defer(() -> Flux.fromIterable(genreService.getAll()));
+    }
+
+    @GetMapping(value = "/mpa", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Mpa> getMpa() {
+        log.info("Реактивный запрос mpa");
+        return Flux.defer(() -> Flux.fromIterable(mpaService.getMpa()));
+    }
+}
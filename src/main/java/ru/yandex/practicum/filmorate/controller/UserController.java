@@ -5,8 +5,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 
 import java.util.List;
 
@@ -17,14 +24,33 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final ChangeVersions versions;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<User> getUsers() {
+    public List<User> getUsers(WebRequest request) {
         log.info("Запрос коллекции пользователей");
+        if (request.checkNotModified(versions.tag(ChangeVersions.Aggregate.USERS))) {
+            return null;
+        }
         return userService.getUsers();
     }
 
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public Page<User> getUsersPage(@RequestParam int limit,
+                                   @RequestParam(required = false) String cursor) {
+        log.info("Запрос страницы пользователей, limit={}", limit);
+        return userService.getUsersPage(cursor, limit);
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetResult<User> getUsersByIds(@RequestParam List<Long> ids) {
+        log.info("Запрос пользователей по списку id, количество={}", ids.size());
+        return userService.getUsersByIds(ids);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public User createUser(@Valid @RequestBody User user) {
@@ -67,6 +93,31 @@ public class UserController {
         return userService.getAllUsersFriends(id);
     }
 
+    @GetMapping(value = "{id}/friends", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public Page<User> getUsersFriendsPage(@PathVariable long id,
+                                          @RequestParam int limit,
+                                          @RequestParam(required = false) String cursor) {
+        log.info("Запрос страницы списка друзей у пользователя {}, limit={}", id, limit);
+        return userService.getUsersFriendsPage(id, cursor, limit);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FriendSuggestion> getFriendSuggestions(@PathVariable long id,
+                                                       @RequestParam(defaultValue = "10") int count) {
+        log.info("Запрос рекомендаций друзей для пользователя {}, count={}", id, count);
+        return userService.getFriendSuggestions(id, count);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Film> getRecommendations(@PathVariable long id,
+                                         @RequestParam(defaultValue = "10") int count) {
+        log.info("Запрос рекомендаций фильмов для пользователя {}, count={}", id, count);
+        return filmService.getRecommendations(id, count);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     @ResponseStatus(HttpStatus.OK)
     public List<User> getAllUsersCommonFriends(@PathVariable long id, @PathVariable long otherId) {
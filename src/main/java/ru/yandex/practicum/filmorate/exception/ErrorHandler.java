@@ -2,6 +2,8 @@ package ru.yandex.practicum.filmorate.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -39,6 +41,26 @@ public class ErrorHandler {
         return new ErrorResponse("Ошибка валидации", message);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailable(final ServiceUnavailableException e) {
+        log.warn("Сервис перегружен: {}", e.getMessage());
+        return new ErrorResponse("Сервис временно недоступен", e.getMessage());
+    }
+
+    // Отказ bulkhead при открытии транзакции JpaTransactionManager оборачивает в CannotCreateTransactionException
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleCannotCreateTransaction(final CannotCreateTransactionException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceUnavailableException unavailable) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(handleServiceUnavailable(unavailable));
+            }
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(handleInternalServerError(e));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleInternalServerError(final Throwable e) {
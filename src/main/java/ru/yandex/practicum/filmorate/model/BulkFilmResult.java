@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkFilmResult {
+    private int line;
+
+    private Status status;
+
+    private Long id;
+
+    private String error;
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    public static BulkFilmResult created(int line, long id) {
+        return BulkFilmResult.builder()
+                .line(line)
+                .status(Status.CREATED)
+                .id(id)
+                .build();
+    }
+
+    public static BulkFilmResult failed(int line, String error) {
+        return BulkFilmResult.builder()
+                .line(line)
+                .status(Status.FAILED)
+                .error(error)
+                .build();
+    }
+}
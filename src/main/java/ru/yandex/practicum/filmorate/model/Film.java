@@ -4,8 +4,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDate;
@@ -13,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 @Data
 @Builder
@@ -39,6 +43,15 @@ public class Film {
 
     private final Set<Long> likes = new HashSet<>();
 
+    /**
+     * Состояние фильма на момент чтения из базы или последнего сохранения; по нему видно,
+     * прочитаны ли жанры вместе с фильмом. null - фильм пришёл не из хранилища.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private PersistedState persistedState;
+
     public void addLike(long userId) {
         likes.add(userId);
     }
@@ -57,4 +70,35 @@ public class Film {
     public void setGenres(List<Genre> genres) {
         this.genres = genres != null ? genres : new ArrayList<>();
     }
+
+    public Set<Integer> genreIds() {
+        Set<Integer> ids = new TreeSet<>();
+        if (genres != null) {
+            genres.forEach(genre -> ids.add(genre.getId()));
+        }
+        return ids;
+    }
+
+    /**
+     * Жанры прочитаны из хранилища вместе с фильмом, и догружать их не нужно.
+     */
+    public boolean genresLoaded() {
+        return persistedState != null && persistedState.genreIds() != null;
+    }
+
+    /**
+     * genresLoaded = false значит, что жанры не читались из базы и пустой список не означает их отсутствия.
+     */
+    public void markPersisted(boolean genresLoaded) {
+        persistedState = new PersistedState(name, description, releaseDate, duration,
+                mpa == null ? 0 : mpa.getId(), genresLoaded ? genreIds() : null);
+    }
+
+    public record PersistedState(String name,
+                                 String description,
+                                 LocalDate releaseDate,
+                                 double duration,
+                                 int mpaId,
+                                 Set<Integer> genreIds) {
+    }
 }
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+public record LikeChange(long filmId, long userId, boolean liked) {
+    public static LikeChange added(long filmId, long userId) {
+        return new LikeChange(filmId, userId, true);
+    }
+
+    public static LikeChange removed(long filmId, long userId) {
+        return new LikeChange(filmId, userId, false);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class MultiGetResult<T> {
+    private List<T> items;
+
+    private List<Long> missingIds;
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+/**
+ * Место фильма в рейтинге популярности и число его лайков. rank = null - фильм выбыл из топа.
+ */
+public record PopularityChange(long filmId, Integer rank, long likes) {
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkFilmResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Service
+@Slf4j
+public class FilmImportService {
+
+    private final FilmStorage filmStorage;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public FilmImportService(FilmStorage filmStorage,
+                             FilmService filmService,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${filmorate.films.bulk.chunk-size:1000}") int chunkSize) {
+        this.filmStorage = filmStorage;
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Результаты отдаются в порядке строк входа: ошибки разбора придерживаются до сохранения
+     * пачки, в которую попали, и выводятся вперемешку с её результатами по номеру строки.
+     */
+    public void importFilms(InputStream in, Consumer<BulkFilmResult> results) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Film> films = new ArrayList<>(chunkSize);
+        List<Integer> lines = new ArrayList<>(chunkSize);
+        List<BulkFilmResult> failures = new ArrayList<>();
+        int lineNumber = 0;
+        int created = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                films.add(parse(line));
+                lines.add(lineNumber);
+            } catch (ValidationException | NotFoundException e) {
+                failures.add(BulkFilmResult.failed(lineNumber, e.getMessage()));
+            }
+            if (films.size() + failures.size() == chunkSize) {
+                created += flush(films, lines, failures, results);
+            }
+        }
+        created += flush(films, lines, failures, results);
+        log.info("Пакетная загрузка фильмов завершена: строк {}, добавлено {}", lineNumber, created);
+    }
+
+    private Film parse(String line) {
+        Film film;
+        try {
+            film = objectMapper.readValue(line, Film.class);
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Некорректный JSON: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.iterator().next().getMessage());
+        }
+        film.setId(0);
+        filmService.validateNewFilm(film);
+        return film;
+    }
+
+    private int flush(List<Film> films,
+                      List<Integer> lines,
+                      List<BulkFilmResult> failures,
+                      Consumer<BulkFilmResult> results) {
+        List<BulkFilmResult> saved = new ArrayList<>(films.size());
+        if (!films.isEmpty()) {
+            try {
+                filmStorage.saveAll(films);
+                for (int i = 0; i < films.size(); i++) {
+                    saved.add(BulkFilmResult.created(lines.get(i), films.get(i).getId()));
+                }
+            } catch (DataAccessException e) {
+                log.error("Не удалось сохранить пачку из {} фильмов", films.size(), e);
+                for (Integer line : lines) {
+                    saved.add(BulkFilmResult.failed(line, "Не удалось сохранить фильм"));
+                }
+            }
+        }
+        // Оба списка уже упорядочены по номеру строки
+        int i = 0;
+        int j = 0;
+        while (i < saved.size() || j < failures.size()) {
+            if (j == failures.size() || (i < saved.size() && saved.get(i).getLine() < failures.get(j).getLine())) {
+                results.accept(saved.get(i++));
+            } else {
+                results.accept(failures.get(j++));
+            }
+        }
+        int created = (int) saved.stream()
+                .filter(result -> result.getStatus() == BulkFilmResult.Status.CREATED)
+                .count();
+        films.clear();
+        lines.clear();
+        failures.clear();
+        return created;
+    }
+}
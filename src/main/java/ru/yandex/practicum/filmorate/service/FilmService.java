@@ -3,15 +3,19 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.db.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBehindBuffer;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -19,9 +23,11 @@ import java.util.*;
 public class FilmService {
 
     private static final LocalDate EARLIEST_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final int STREAM_CHUNK_SIZE = 500;
     private final FilmStorage filmStorage;
     private final ValidationService validationService;
-    private final GenreDbStorage genreDbStorage;
+    private final GenreStorage genreStorage;
+    private final LikeWriteBehindBuffer likeBuffer;
 
     public List<Film> getFilms() {
         List<Film> films = filmStorage.getAll();
@@ -34,16 +40,81 @@ public class FilmService {
         return films;
     }
 
+    public void streamFilms(Consumer<Film> consumer) {
+        filmStorage.forEachChunk(STREAM_CHUNK_SIZE, chunk -> {
+            enrichFilmsWithGenres(chunk);
+            chunk.forEach(consumer);
+        });
+    }
+
+    public Page<Film> getFilmsPage(String cursor, int limit) {
+        Pagination.validateLimit(limit);
+        long afterId = Pagination.decodeCursor(cursor);
+        Page<Film> page = Pagination.toPage(filmStorage.getPage(afterId, limit + 1), limit, Film::getId);
+        enrichFilmsWithGenres(page.getItems());
+        return page;
+    }
+
     public List<Film> getMostPopularFilms(int count) {
-        if (count <= 0) {
+        return getMostPopularFilms(count, 0);
+    }
+
+    public List<Film> getMostPopularFilms(int count, int from) {
+        return getMostPopularFilms(count, from, null, null);
+    }
+
+    public List<Film> getMostPopularFilms(int count, int from, Integer genreId, Integer year) {
+        validatePopularRange(count, from);
+        List<Film> films = filmStorage.getMostPopular(count, from, genreId, year);
+        enrichFilmsWithGenres(films);
+        return films;
+    }
+
+    public void validatePopularRange(int count, int from) {
+        if (count <= 0 || count > Pagination.MAX_LIMIT) {
             log.warn("Запрошено некорректное количество фильмов: {}", count);
-            throw new ValidationException("Количество фильмов должно быть положительным");
+            throw new ValidationException("Количество фильмов должно быть от 1 до " + Pagination.MAX_LIMIT);
+        }
+        if (from < 0 || from > Pagination.MAX_OFFSET) {
+            log.warn("Запрошена некорректная позиция в рейтинге: {}", from);
+            throw new ValidationException("Позиция в рейтинге должна быть от 0 до " + Pagination.MAX_OFFSET);
+        }
+    }
+
+    public List<Film> getRecommendations(long userId, int count) {
+        if (count <= 0 || count > Pagination.MAX_LIMIT) {
+            log.warn("Запрошено некорректное количество рекомендаций: {}", count);
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + Pagination.MAX_LIMIT);
         }
-        List<Film> films = filmStorage.getMostPopular(count);
+        validationService.getUserOrThrow(userId);
+        List<Film> films = filmStorage.getRecommendations(userId, count);
         enrichFilmsWithGenres(films);
+        log.debug("Получены рекомендации фильмов для пользователя {}", userId);
         return films;
     }
 
+    public List<Film> searchFilms(String query, int count, int from) {
+        if (query == null || query.isBlank()) {
+            log.warn("Запрошен поиск с пустой строкой");
+            throw new ValidationException("Строка поиска не может быть пустой");
+        }
+        if (count <= 0 || count > Pagination.MAX_LIMIT || from < 0 || from > Pagination.MAX_OFFSET) {
+            log.warn("Некорректные параметры поиска: count={}, from={}", count, from);
+            throw new ValidationException("Количество результатов должно быть от 1 до " + Pagination.MAX_LIMIT
+                    + ", а позиция - от 0 до " + Pagination.MAX_OFFSET);
+        }
+        List<Film> films = filmStorage.search(query, count, from);
+        enrichFilmsWithGenres(films);
+        return films;
+    }
+
+    public MultiGetResult<Film> getFilmsByIds(List<Long> ids) {
+        List<Long> uniqueIds = MultiGet.validateIds(ids);
+        List<Film> films = filmStorage.getByIds(uniqueIds);
+        enrichFilmsWithGenres(films);
+        return MultiGet.toResult(uniqueIds, films, Film::getId);
+    }
+
     public Film getFilm(long id) {
         Film film = validationService.getFilmOrThrow(id);
         enrichOneFilmWithGenres(film);
@@ -51,9 +122,7 @@ public class FilmService {
     }
 
     public Film create(Film film) {
-        validateFilm(film);
-        validationService.validateMpa(film.getMpa().getId());
-        validateGenres(film);
+        validateNewFilm(film);
         filmStorage.save(film);
         log.debug("Фильм успешно добавлен в список");
         return film;
@@ -73,15 +142,27 @@ public class FilmService {
     public void addLikeToFilm(long id, long userId) {
         validationService.getUserOrThrow(userId);
         Film film = validationService.getFilmOrThrow(id);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(LikeChange.added(id, userId));
+            return;
+        }
         filmStorage.addLike(film, userId);
-        filmStorage.save(film);
     }
 
     public void removeLikeFromFilm(long id, long userId) {
         validationService.getUserOrThrow(userId);
         Film film = validationService.getFilmOrThrow(id);
-        filmStorage.removeLike(film, id);
-        filmStorage.save(film);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.submit(LikeChange.removed(id, userId));
+            return;
+        }
+        filmStorage.removeLike(film, userId);
+    }
+
+    public void validateNewFilm(Film film) {
+        validateFilm(film);
+        validationService.validateMpa(film.getMpa().getId());
+        validateGenres(film);
     }
 
     private void validateFilm(Film film) {
@@ -103,27 +184,25 @@ public class FilmService {
                     .map(Genre::getId)
                     .toList();
 
-            List<Genre> genres = genreDbStorage.getGenresByIds(genresId);
-
-            if (genres.size() != genresId.size()) {
-                log.warn("Запрошены несуществующие жанры");
-                throw new NotFoundException("Часть жанров не нашлась");
-            }
+            validationService.validateGenres(genresId);
         }
     }
 
     private void enrichFilmsWithGenres(List<Film> films) {
-        if (films.isEmpty()) {
+        List<Film> withoutGenres = films.stream()
+                .filter(film -> !film.genresLoaded())
+                .toList();
+        if (withoutGenres.isEmpty()) {
             return;
         }
 
-        List<Long> filmsIds = films.stream()
+        List<Long> filmsIds = withoutGenres.stream()
                 .map(Film::getId)
                 .toList();
 
-        Map<Long, List<Genre>> map = genreDbStorage.getGenresByFilmIds(filmsIds);
+        Map<Long, List<Genre>> map = genreStorage.getGenresByFilmIds(filmsIds);
 
-        for (Film film : films) {
+        for (Film film : withoutGenres) {
             List<Genre> genres = map.getOrDefault(film.getId(), new ArrayList<>());
             film.setGenres(genres);
         }
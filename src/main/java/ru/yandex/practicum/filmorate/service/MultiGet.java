@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+final class MultiGet {
+    static final int MAX_IDS = Pagination.MAX_LIMIT;
+
+    private MultiGet() {
+    }
+
+    static List<Long> validateIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new ValidationException("Список id не может быть пустым");
+        }
+        List<Long> uniqueIds = ids.stream().distinct().toList();
+        if (uniqueIds.size() > MAX_IDS) {
+            throw new ValidationException("За один запрос можно получить не больше " + MAX_IDS + " записей");
+        }
+        return uniqueIds;
+    }
+
+    // Найденные записи идут в порядке запроса, остальные id попадают в missingIds
+    static <T> MultiGetResult<T> toResult(List<Long> ids, List<T> found, ToLongFunction<T> idGetter) {
+        Set<Long> foundIds = found.stream()
+                .map(idGetter::applyAsLong)
+                .collect(Collectors.toSet());
+        return MultiGetResult.<T>builder()
+                .items(found)
+                .missingIds(ids.stream()
+                        .filter(id -> !foundIds.contains(id))
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+final class Pagination {
+    static final int MAX_LIMIT = 1000;
+    static final int MAX_OFFSET = 100_000;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private Pagination() {
+    }
+
+    static void validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_LIMIT);
+        }
+    }
+
+    static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+    }
+
+    static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Хранилище возвращает на одну запись больше лимита: так без COUNT видно, есть ли следующая страница
+    static <T> Page<T> toPage(List<T> rows, int limit, ToLongFunction<T> idGetter) {
+        if (rows.size() <= limit) {
+            return Page.<T>builder()
+                    .items(rows)
+                    .build();
+        }
+        List<T> items = rows.subList(0, limit);
+        return Page.<T>builder()
+                .items(items)
+                .nextCursor(encodeCursor(idGetter.applyAsLong(items.get(limit - 1))))
+                .build();
+    }
+}
@@ -0,0 +1,300 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.PopularityChange;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Поток изменений рейтинга популярности для SSE-подписчиков.
+ * Раз в окно топ пересчитывается один раз на всех и только если менялись фильмы или лайки;
+ * разница сериализуется один раз на каждый запрошенный размер топа. У каждого подписчика своя
+ * ограниченная очередь событий, которую разбирает небольшой общий пул отправителей; если очередь
+ * переполнена, подписчик слишком медленный и отключается. Публикующий поток никогда не пишет в сокет.
+ * Запись, зависшая дольше write-timeout, тоже отключает подписчика, а пул на время зависания получает
+ * запасной поток, чтобы остальные подписчики продолжали получать события.
+ */
+@Slf4j
+@Service
+public class PopularityFeed {
+    static final String DROPPED_COUNTER_NAME = "filmorate.popular.stream.dropped";
+    static final String SUBSCRIBERS_GAUGE_NAME = "filmorate.popular.stream.subscribers";
+    static final String SNAPSHOT_EVENT = "snapshot";
+    static final String CHANGES_EVENT = "changes";
+    private static final long IDLE = Long.MIN_VALUE;
+    private static final long STALLED = Long.MAX_VALUE;
+
+    private final FilmPopularityIndex popularityIndex;
+    private final ChangeVersions versions;
+    private final ObjectMapper objectMapper;
+    private final int topSize;
+    private final int bufferCapacity;
+    private final Duration timeout;
+    private final long writeTimeoutNanos;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final Counter dropped;
+
+    private List<PopularityChange> top;
+    private long topVersion;
+
+    public PopularityFeed(FilmPopularityIndex popularityIndex,
+                          ChangeVersions versions,
+                          ObjectMapper objectMapper,
+                          @Value("${filmorate.popular.stream.top-size:100}") int topSize,
+                          @Value("${filmorate.popular.stream.buffer-capacity:16}") int bufferCapacity,
+                          @Value("${filmorate.popular.stream.timeout:PT30M}") Duration timeout,
+                          @Value("${filmorate.popular.stream.write-timeout:PT5S}") Duration writeTimeout,
+                          @Value("${filmorate.popular.stream.sender-threads:4}") int senderThreads) {
+        this.popularityIndex = popularityIndex;
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.topSize = topSize;
+        this.bufferCapacity = bufferCapacity;
+        this.timeout = timeout;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "popularity-feed-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dropped = Counter.builder(DROPPED_COUNTER_NAME)
+                .description("SSE-подписчики, отключённые из-за переполненной очереди или зависшей записи")
+                .register(Metrics.globalRegistry);
+        Gauge.builder(SUBSCRIBERS_GAUGE_NAME, subscribers, List::size)
+                .description("Подписчики на изменения рейтинга популярности")
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Подписка на топ из count фильмов: сначала приходит текущий топ, затем только изменения.
+     */
+    public synchronized SseEmitter subscribe(int count) {
+        if (count <= 0 || count > topSize) {
+            log.warn("Запрошен некорректный размер топа для подписки: {}", count);
+            throw new ValidationException("Размер топа должен быть от 1 до " + topSize);
+        }
+        refresh();
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), count,
+                new ArrayBlockingQueue<>(bufferCapacity));
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        offer(subscriber, SNAPSHOT_EVENT, toJson(top.subList(0, Math.min(count, top.size()))));
+        log.debug("Новый подписчик на топ из {} фильмов, всего {}", count, subscribers.size());
+        return subscriber.emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.popular.stream.window:PT1S}")
+    public synchronized void publish() {
+        dropStalled();
+        if (!subscribers.isEmpty()) {
+            refresh();
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private void refresh() {
+        long version = versions.getVersion(ChangeVersions.Aggregate.FILMS)
+                + versions.getVersion(ChangeVersions.Aggregate.LIKES);
+        if (top != null && version == topVersion) {
+            return;
+        }
+        topVersion = version;
+        List<Long> filmIds = popularityIndex.getTopFilmIds(topSize, 0);
+        List<PopularityChange> current = new ArrayList<>(filmIds.size());
+        for (int i = 0; i < filmIds.size(); i++) {
+            current.add(new PopularityChange(filmIds.get(i), i + 1, popularityIndex.getLikes(filmIds.get(i))));
+        }
+        if (top != null) {
+            broadcast(top, current);
+        }
+        top = current;
+    }
+
+    private void broadcast(List<PopularityChange> previous, List<PopularityChange> current) {
+        Map<Integer, String> payloadByCount = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            String payload = payloadByCount.computeIfAbsent(subscriber.count,
+                    count -> {
+                        List<PopularityChange> changes = diff(previous, current, count, popularityIndex::getLikes);
+                        return changes.isEmpty() ? "" : toJson(changes);
+                    });
+            if (!payload.isEmpty()) {
+                offer(subscriber, CHANGES_EVENT, payload);
+            }
+        }
+    }
+
+    static List<PopularityChange> diff(List<PopularityChange> previous,
+                                       List<PopularityChange> current,
+                                       int count,
+                                       ToLongFunction<Long> likes) {
+        Map<Long, PopularityChange> before = new LinkedHashMap<>();
+        previous.stream().limit(count).forEach(change -> before.put(change.filmId(), change));
+        List<PopularityChange> changes = new ArrayList<>();
+        for (PopularityChange now : current.subList(0, Math.min(count, current.size()))) {
+            PopularityChange was = before.remove(now.filmId());
+            if (was == null || !Objects.equals(was.rank(), now.rank()) || was.likes() != now.likes()) {
+                changes.add(now);
+            }
+        }
+        before.values().forEach(was -> changes.add(
+                new PopularityChange(was.filmId(), null, likes.applyAsLong(was.filmId()))));
+        return changes;
+    }
+
+    private void offer(Subscriber subscriber, String event, String payload) {
+        if (!subscriber.queue.offer(SseEmitter.event().name(event).data(payload))) {
+            drop(subscriber, "Подписчик на рейтинг не успевает читать события и отключён");
+        }
+        scheduleSend(subscriber);
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            log.warn(reason);
+            dropped.increment();
+        }
+        // Соединение закроет отправитель: emitter может быть занят медленной записью
+        subscriber.closed.set(true);
+        subscriber.queue.clear();
+    }
+
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : writing) {
+            long started = subscriber.writeStarted.get();
+            if (started != IDLE && started != STALLED && now - started > writeTimeoutNanos
+                    && subscriber.writeStarted.compareAndSet(started, STALLED)) {
+                drop(subscriber, "Запись подписчику на рейтинг зависла и он отключён");
+                // Пока запись не вернёт управление, её поток заменяет запасной
+                resizeSenders(1);
+            }
+        }
+    }
+
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            if (delta > 0) {
+                senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+                senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            } else {
+                senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+                senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private void scheduleSend(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                timedWrite(subscriber, event);
+            }
+            if (subscriber.closed.get()) {
+                subscriber.emitter.complete();
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписчик на рейтинг отключился: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            return;
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // Событие могло прийти после опустошения очереди, но до сброса флага
+        if (!subscriber.queue.isEmpty()) {
+            scheduleSend(subscriber);
+        }
+    }
+
+    private void timedWrite(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        long started = System.nanoTime();
+        subscriber.writeStarted.set(started);
+        writing.add(subscriber);
+        try {
+            write(subscriber.emitter, event);
+        } finally {
+            writing.remove(subscriber);
+            if (!subscriber.writeStarted.compareAndSet(started, IDLE)) {
+                // Подписчик уже признан зависшим, запасной поток больше не нужен
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    void write(SseEmitter emitter, SseEmitter.SseEventBuilder event) throws IOException {
+        emitter.send(event);
+    }
+
+    private String toJson(List<PopularityChange> changes) {
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Subscriber(SseEmitter emitter,
+                              int count,
+                              BlockingQueue<SseEmitter.SseEventBuilder> queue,
+                              AtomicBoolean sending,
+                              AtomicBoolean closed,
+                              AtomicLong writeStarted) {
+        Subscriber(SseEmitter emitter, int count, BlockingQueue<SseEmitter.SseEventBuilder> queue) {
+            this(emitter, count, queue, new AtomicBoolean(), new AtomicBoolean(), new AtomicLong(IDLE));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
+
+/**
+ * Фильмы для эндпоинтов /reactive. Чтение идёт через FilmService и те же JDBC-хранилища, поэтому
+ * остаётся блокирующим, но выполняется на ограниченном пуле boundedElastic, а не на потоке запроса.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveFilmService {
+    static final int PAGE_SIZE = 100;
+
+    private final FilmService filmService;
+
+    /**
+     * Все фильмы страницами по PAGE_SIZE: следующая страница читается, только когда подписчик
+     * дочитал предыдущую.
+     */
+    public Flux<Film> getFilms() {
+        return page(null)
+                .expand(page -> page.getNextCursor() == null ? Mono.empty() : page(page.getNextCursor()))
+                .concatMapIterable(Page::getItems, 1);
+    }
+
+    public Mono<Film> getFilm(long id) {
+        return Mono.fromCallable(() -> filmService.getFilm(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Flux<Film> getMostPopularFilms(int count, int from, Integer genreId, Integer year) {
+        return Mono.fromCallable(() -> filmService.getMostPopularFilms(count, from, genreId, year))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(films -> films);
+    }
+
+    private Mono<Page<Film>> page(String cursor) {
+        return Mono.fromCallable(() -> filmService.getFilmsPage(cursor, PAGE_SIZE))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
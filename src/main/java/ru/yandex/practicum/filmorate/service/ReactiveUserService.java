@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Пользователи для эндпоинтов /reactive: блокирующее чтение через UserService на пуле boundedElastic.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveUserService {
+    static final int PAGE_SIZE = 100;
+
+    private final UserService userService;
+
+    public Flux<User> getAllUsersFriends(long id) {
+        return page(id, null)
+                .expand(page -> page.getNextCursor() == null ? Mono.empty() : page(id, page.getNextCursor()))
+                .concatMapIterable(Page::getItems, 1);
+    }
+
+    private Mono<Page<User>> page(long id, String cursor) {
+        return Mono.fromCallable(() -> userService.getUsersFriendsPage(id, cursor, PAGE_SIZE))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -4,6 +4,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
@@ -21,6 +24,17 @@ public class UserService {
         return userStorage.getAll();
     }
 
+    public Page<User> getUsersPage(String cursor, int limit) {
+        Pagination.validateLimit(limit);
+        long afterId = Pagination.decodeCursor(cursor);
+        return Pagination.toPage(userStorage.getPage(afterId, limit + 1), limit, User::getId);
+    }
+
+    public MultiGetResult<User> getUsersByIds(List<Long> ids) {
+        List<Long> uniqueIds = MultiGet.validateIds(ids);
+        return MultiGet.toResult(uniqueIds, userStorage.getByIds(uniqueIds), User::getId);
+    }
+
     public User getUser(long id) {
         return validationService.getUserOrThrow(id);
     }
@@ -73,27 +87,22 @@ public class UserService {
         return friends;
     }
 
+    public Page<User> getUsersFriendsPage(long id, String cursor, int limit) {
+        Pagination.validateLimit(limit);
+        long afterId = Pagination.decodeCursor(cursor);
+        validationService.getUserOrThrow(id);
+        List<User> friends = userStorage.getFriendsPage(id, afterId, limit + 1);
+        log.debug("Получена страница списка друзей пользователя {}", id);
+        return Pagination.toPage(friends, limit, User::getId);
+    }
+
     public List<User> getAllUsersCommonFriends(long id, long otherId) {
         if (id == otherId) {
             log.warn("Попытка запросить общих друзей у самого себя");
             throw new ValidationException("Нельзя запросить общих друзей у самого себя");
         }
-        Map<Long, User> users = userStorage.getUsersMapByIds(List.of(id, otherId));
-        User user = users.get(id);
-        User otherUser = users.get(otherId);
-        List<Long> userFriends = userStorage.getAllFriends(user)
-                .stream()
-                .map(User::getId)
-                .toList();
-
-        List<Long> otherUserFriends = userStorage.getAllFriends(otherUser)
-                .stream()
-                .map(User::getId)
-                .toList();
-
-        Set<Long> setOfId = new HashSet<>(userFriends);
-        setOfId.retainAll(otherUserFriends);
-        List<User> commonFriends = userStorage.getListOfUsers(new ArrayList<>(setOfId));
+        userStorage.getUsersMapByIds(List.of(id, otherId));
+        List<User> commonFriends = userStorage.getCommonFriends(id, otherId);
         log.debug("Получен список общих друзей пользователя {} с пользователем", id);
         if (commonFriends.isEmpty()) {
             return Collections.emptyList();
@@ -101,6 +110,17 @@ public class UserService {
         return commonFriends;
     }
 
+    public List<FriendSuggestion> getFriendSuggestions(long id, int count) {
+        if (count <= 0 || count > Pagination.MAX_LIMIT) {
+            log.warn("Запрошено некорректное количество рекомендаций: {}", count);
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + Pagination.MAX_LIMIT);
+        }
+        validationService.getUserOrThrow(id);
+        List<FriendSuggestion> suggestions = userStorage.getFriendSuggestions(id, count);
+        log.debug("Получены рекомендации друзей для пользователя {}", id);
+        return suggestions;
+    }
+
     private void setNameFromLoginIfBlank(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             log.info("Пользователю присвоен логин в качестве имени");
@@ -12,6 +12,8 @@ import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.DictionaryStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.util.List;
+
 @Service
 @Slf4j
 public class ValidationService {
@@ -21,10 +23,10 @@ public class ValidationService {
     private final UserStorage userStorage;
     private final FilmStorage filmStorage;
 
-    public ValidationService(@Qualifier("userDbStorage") UserStorage userStorage,
-                             @Qualifier("filmDbStorage") FilmStorage filmStorage,
-                             @Qualifier("mpaDbStorage") DictionaryStorage<Mpa> mpaStorage,
-                             @Qualifier("genreDbStorage") DictionaryStorage<Genre> genreStorage) {
+    public ValidationService(UserStorage userStorage,
+                             FilmStorage filmStorage,
+                             @Qualifier("mpaStorage") DictionaryStorage<Mpa> mpaStorage,
+                             @Qualifier("genreStorage") DictionaryStorage<Genre> genreStorage) {
         this.userStorage = userStorage;
         this.filmStorage = filmStorage;
         this.mpaStorage = mpaStorage;
@@ -56,4 +58,13 @@ public class ValidationService {
         return genreStorage.get(id)
                 .orElseThrow(() -> new NotFoundException("Жанр с id " + id + " не найден"));
     }
+
+    public List<Genre> validateGenres(List<Integer> ids) {
+        List<Genre> genres = genreStorage.getByIds(ids);
+        if (genres.size() != ids.size()) {
+            log.warn("Запрошены несуществующие жанры");
+            throw new NotFoundException("Часть жанров не нашлась");
+        }
+        return genres;
+    }
 }
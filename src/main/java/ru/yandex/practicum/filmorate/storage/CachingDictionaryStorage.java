@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+@Slf4j
+public class CachingDictionaryStorage<T> implements DictionaryStorage<T> {
+    static final String HITS_COUNTER_NAME = "filmorate.dictionary.cache.hits";
+    static final String MISSES_COUNTER_NAME = "filmorate.dictionary.cache.misses";
+
+    private final DictionaryStorage<T> delegate;
+    private final ToIntFunction<T> idGetter;
+    private final Runnable onChange;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile Snapshot<T> snapshot = new Snapshot<>(List.of(), new Object[0]);
+
+    public CachingDictionaryStorage(String name, DictionaryStorage<T> delegate, ToIntFunction<T> idGetter) {
+        this(name, delegate, idGetter, () -> {
+        });
+    }
+
+    /**
+     * name попадает в тег dictionary счётчиков попаданий и промахов кэша.
+     * onChange вызывается, когда перезагрузка принесла содержимое, отличное от закэшированного.
+     */
+    public CachingDictionaryStorage(String name,
+                                    DictionaryStorage<T> delegate,
+                                    ToIntFunction<T> idGetter,
+                                    Runnable onChange) {
+        this.delegate = delegate;
+        this.idGetter = idGetter;
+        this.onChange = onChange;
+        FunctionCounter.builder(HITS_COUNTER_NAME, hits, LongAdder::sum)
+                .description("Обращения к справочнику, обслуженные из кэша")
+                .tag("dictionary", name)
+                .register(Metrics.globalRegistry);
+        FunctionCounter.builder(MISSES_COUNTER_NAME, misses, LongAdder::sum)
+                .description("Обращения к справочнику, ушедшие в базу")
+                .tag("dictionary", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.dictionary-cache.refresh-interval:PT10M}",
+            initialDelayString = "${filmorate.dictionary-cache.refresh-interval:PT10M}")
+    public synchronized void refresh() {
+        List<T> all = delegate.getAll();
+        int maxId = all.stream()
+                .mapToInt(idGetter)
+                .max()
+                .orElse(0);
+        Object[] byId = new Object[maxId + 1];
+        for (T item : all) {
+            byId[idGetter.applyAsInt(item)] = item;
+        }
+        boolean changed = !snapshot.all().equals(all);
+        snapshot = new Snapshot<>(List.copyOf(all), byId);
+        log.debug("Справочник загружен в кэш: {} записей", all.size());
+        if (changed) {
+            onChange.run();
+        }
+    }
+
+    @Override
+    public List<T> getAll() {
+        hits.increment();
+        return snapshot.all();
+    }
+
+    @Override
+    public Optional<T> get(int id) {
+        T cached = lookup(snapshot, id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        Optional<T> loaded = delegate.get(id);
+        if (loaded.isPresent()) {
+            log.debug("Запись {} отсутствовала в кэше справочника, кэш будет перезагружен", id);
+            refresh();
+        }
+        return loaded;
+    }
+
+    @Override
+    public List<T> getByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Snapshot<T> current = snapshot;
+        List<T> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            T cached = lookup(current, id);
+            if (cached == null) {
+                misses.increment();
+                return delegate.getByIds(ids);
+            }
+            result.add(cached);
+        }
+        hits.increment();
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T lookup(Snapshot<T> current, int id) {
+        if (id < 0 || id >= current.byId().length) {
+            return null;
+        }
+        return (T) current.byId()[id];
+    }
+
+    private record Snapshot<E>(List<E> all, Object[] byId) {
+    }
+}
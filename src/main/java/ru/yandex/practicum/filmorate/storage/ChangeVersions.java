@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Счётчики изменений по агрегатам, из которых строятся ETag для читающих эндпоинтов.
+ * Счётчики живут в памяти, поэтому в тег входит эпоха процесса: после перезапуска
+ * старые теги клиентов гарантированно не совпадут с новыми.
+ */
+@Component
+public class ChangeVersions {
+
+    public enum Aggregate {
+        FILMS, LIKES, USERS, GENRES, MPA
+    }
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Aggregate.values().length);
+    private final ConcurrentHashMap<Long, Long> filmVersions = new ConcurrentHashMap<>();
+
+    public void filmChanged(long filmId) {
+        afterCommit(() -> {
+            filmVersions.merge(filmId, 1L, Long::sum);
+            versions.incrementAndGet(Aggregate.FILMS.ordinal());
+        });
+    }
+
+    public void likesChanged(long filmId) {
+        afterCommit(() -> {
+            filmVersions.merge(filmId, 1L, Long::sum);
+            versions.incrementAndGet(Aggregate.LIKES.ordinal());
+        });
+    }
+
+    public void usersChanged() {
+        afterCommit(() -> versions.incrementAndGet(Aggregate.USERS.ordinal()));
+    }
+
+    // Вызывается кэшем справочника, который уже отдаёт новые данные, поэтому без ожидания коммита
+    public void dictionaryChanged(Aggregate dictionary) {
+        versions.incrementAndGet(dictionary.ordinal());
+    }
+
+    public long getVersion(Aggregate aggregate) {
+        return versions.get(aggregate.ordinal());
+    }
+
+    /**
+     * Сильный ETag, который меняется при изменении любого из перечисленных агрегатов.
+     */
+    public String tag(Aggregate... aggregates) {
+        StringBuilder tag = new StringBuilder("\"").append(epoch);
+        for (Aggregate aggregate : aggregates) {
+            tag.append('-').append(versions.get(aggregate.ordinal()));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * ETag одного фильма: кроме самого фильма и его лайков, в ответ входят названия жанров и рейтинга MPA.
+     */
+    public String filmTag(long filmId) {
+        return "\"" + epoch + "-f" + filmId + "-" + filmVersions.getOrDefault(filmId, 0L)
+                + "-" + versions.get(Aggregate.GENRES.ordinal())
+                + "-" + versions.get(Aggregate.MPA.ordinal()) + "\"";
+    }
+
+    // Версия увеличивается только после того, как изменения видны читателям: иначе клиент
+    // мог бы получить новый тег вместе со старыми данными и закешировать их.
+    private static void afterCommit(Runnable bump) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+}
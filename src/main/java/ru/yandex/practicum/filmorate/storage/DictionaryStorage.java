@@ -7,5 +7,7 @@ public interface DictionaryStorage<T> {
     List<T> getAll();
 
     Optional<T> get(int id);
+
+    List<T> getByIds(List<Integer> ids);
 }
 
@@ -1,20 +1,47 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     void save(Film film);
 
+    void saveAll(List<Film> films);
+
     List<Film> getAll();
 
+    List<Film> getPage(long afterId, int limit);
+
+    void forEachChunk(int chunkSize, Consumer<List<Film>> consumer);
+
     Optional<Film> findById(long id);
 
-    List<Film> getMostPopular(int count);
+    List<Film> getByIds(List<Long> ids);
+
+    default List<Film> getMostPopular(int count) {
+        return getMostPopular(count, 0);
+    }
+
+    default List<Film> getMostPopular(int count, int from) {
+        return getMostPopular(count, from, null, null);
+    }
+
+    /**
+     * Самые популярные фильмы, при необходимости только указанного жанра и/или года выпуска.
+     */
+    List<Film> getMostPopular(int count, int from, Integer genreId, Integer year);
+
+    List<Film> getRecommendations(long userId, int count);
+
+    List<Film> search(String query, int count, int from);
 
     void addLike(Film film, long userId);
 
     void removeLike(Film film, long userId);
+
+    void applyLikeChanges(List<LikeChange> changes);
 }
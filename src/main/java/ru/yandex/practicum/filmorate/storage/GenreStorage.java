@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.List;
+import java.util.Map;
+
+public interface GenreStorage extends DictionaryStorage<Genre> {
+    Map<Long, List<Genre>> getGenresByFilmIds(List<Long> filmIds);
+}
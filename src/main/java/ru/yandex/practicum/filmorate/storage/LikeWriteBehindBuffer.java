@@ -0,0 +1,195 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отложенная запись лайков: команды копятся в ограниченной очереди, а фоновый поток
+ * схлопывает повторы по паре фильм-пользователь и пишет их пачками в одной транзакции.
+ * Неудачная пачка повторяется с растущей паузой, затем записывается по одной команде;
+ * команды, которые так и не удалось записать, считаются в filmorate.likes.write-behind.lost.
+ */
+@Slf4j
+@Component
+public class LikeWriteBehindBuffer {
+    static final String LOST_COUNTER_NAME = "filmorate.likes.write-behind.lost";
+
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final BlockingQueue<LikeChange> queue;
+    private final Counter lost;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public LikeWriteBehindBuffer(FilmStorage filmStorage,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                 @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${filmorate.likes.write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+                                 @Value("${filmorate.likes.write-behind.offer-timeout:PT1S}") Duration offerTimeout,
+                                 @Value("${filmorate.likes.write-behind.max-attempts:5}") int maxAttempts,
+                                 @Value("${filmorate.likes.write-behind.retry-backoff:PT0.1S}") Duration retryBackoff) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.lost = Counter.builder(LOST_COUNTER_NAME)
+                .description("Изменения лайков, которые не удалось записать после всех попыток")
+                .register(Metrics.globalRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "like-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Отложенная запись лайков включена: пачка {}, интервал {}", batchSize, flushInterval);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(offerTimeout.plus(flushInterval).toMillis() * 5);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    public void submit(LikeChange change) {
+        try {
+            if (!queue.offer(change, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Очередь лайков переполнена, команда для фильма {} отклонена", change.filmId());
+                throw new ServiceUnavailableException("Сервис перегружен, повторите запрос позже");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Запрос прерван");
+        }
+    }
+
+    public void flush() {
+        List<LikeChange> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeLoop() {
+        List<LikeChange> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<LikeChange> batch) throws InterruptedException {
+        LikeChange first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            LikeChange next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<LikeChange> batch) {
+        Map<Key, LikeChange> collapsed = new LinkedHashMap<>();
+        for (LikeChange change : batch) {
+            collapsed.put(new Key(change.filmId(), change.userId()), change);
+        }
+        List<LikeChange> changes = new ArrayList<>(collapsed.values());
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                filmStorage.applyLikeChanges(changes);
+                log.debug("Записана пачка лайков: {} команд, {} после схлопывания", batch.size(), changes.size());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать пачку из {} изменений лайков, попытка {} из {}",
+                        changes.size(), attempt, maxAttempts, e);
+            }
+            if (attempt < maxAttempts && !pause(attempt)) {
+                break;
+            }
+        }
+        // Пачка целиком не записывается: по одной команде теряются только те, что не записываются сами
+        for (LikeChange change : changes) {
+            try {
+                filmStorage.applyLikeChanges(List.of(change));
+            } catch (RuntimeException e) {
+                lost.increment();
+                log.error("Изменение лайка фильма {} пользователем {} потеряно", change.filmId(), change.userId(), e);
+            }
+        }
+    }
+
+    private boolean pause(int attempt) {
+        try {
+            Thread.sleep(retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 10)));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Key(long filmId, long userId) {
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
@@ -11,12 +12,25 @@ public interface UserStorage {
 
     List<User> getAll();
 
+    List<User> getPage(long afterId, int limit);
+
     Optional<User> findById(long id);
 
     List<User> getAllFriends(User user);
 
+    List<User> getFriendsPage(long userId, long afterId, int limit);
+
+    List<User> getCommonFriends(long userId, long otherId);
+
+    List<FriendSuggestion> getFriendSuggestions(long userId, int count);
+
     List<User> getListOfUsers(List<Long> list);
 
+    /**
+     * Пользователи в порядке запрошенных id; отсутствующие id пропускаются.
+     */
+    List<User> getByIds(List<Long> ids);
+
     void addFriendship(long userId, long friendId);
 
     void removeFriendship(long userId, long friendId);
@@ -8,49 +8,63 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 @RequiredArgsConstructor
 public class BaseRepository<T> {
     protected final JdbcTemplate jdbc;
     protected final RowMapper<T> mapper;
+    private final QueryMetrics metrics = QueryMetrics.of(getClass());
 
     protected Optional<T> findOne(String query, Object... params) {
-        try {
-            T result = jdbc.queryForObject(query, mapper, params);
-            return Optional.ofNullable(result);
-        } catch (EmptyResultDataAccessException ignored) {
-            return Optional.empty();
-        }
+        return measure(query, () -> {
+            try {
+                T result = jdbc.queryForObject(query, mapper, params);
+                return Optional.ofNullable(result);
+            } catch (EmptyResultDataAccessException ignored) {
+                return Optional.<T>empty();
+            }
+        }, result -> result.isPresent() ? 1 : 0);
     }
 
     protected List<T> findMany(String query, Object... params) {
-        return jdbc.query(query, mapper, params);
+        return measure(query, () -> jdbc.query(query, mapper, params), List::size);
     }
 
     protected boolean delete(String query, long id) {
-        int rowsDeleted = jdbc.update(query, id);
+        int rowsDeleted = updateRows(query, id);
         return rowsDeleted > 0;
     }
 
     protected void update(String query, Object... params) {
-        int rowsUpdated = jdbc.update(query, params);
+        int rowsUpdated = updateRows(query, params);
         if (rowsUpdated == 0) {
             throw new RuntimeException("Не удалось обновить данные");
         }
     }
 
+    protected int updateRows(String query, Object... params) {
+        return measure(query, () -> jdbc.update(query, params), Integer::intValue);
+    }
+
+    protected int[] batchUpdate(String query, List<Object[]> batchArgs) {
+        return measure(query, () -> jdbc.batchUpdate(query, batchArgs), BaseRepository::affectedRows);
+    }
+
     protected long insert(String query, Object... params) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbc.update(connection -> {
+        measure(query, () -> jdbc.update(connection -> {
             PreparedStatement ps = connection
                     .prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
             for (int idx = 0; idx < params.length; idx++) {
                 ps.setObject(idx + 1, params[idx]);
             }
             return ps;
-        }, keyHolder);
+        }, keyHolder), Integer::intValue);
 
         Long id = keyHolder.getKeyAs(Long.class);
 
@@ -60,4 +74,18 @@ public class BaseRepository<T> {
             throw new RuntimeException("Не удалось сохранить данные");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняет обращение к базе с записью метрик запроса: время, число строк и ошибки.
+     * Для запросов, которые идут мимо findOne/findMany/update, например с построчной обработкой результата.
+     */
+    protected <R> R measure(String query, Supplier<R> call, ToIntFunction<R> rowCounter) {
+        return metrics.record(query, call, rowCounter);
+    }
+
+    protected static int affectedRows(int[] counts) {
+        return Arrays.stream(counts)
+                .map(count -> Math.max(count, 0))
+                .sum();
+    }
+}
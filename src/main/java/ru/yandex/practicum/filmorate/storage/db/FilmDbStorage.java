@@ -1,57 +1,179 @@
 package ru.yandex.practicum.filmorate.storage.db;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.FilmResultSetExtractor;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
+@Profile("!inmemory")
 public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
     private static final String FIND_ALL_FILMS_QUERY =
-            "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.id AS mpa_id, m.name AS mpa_name " +
+            "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.id AS mpa_id, m.name AS mpa_name, " +
+                    "(SELECT ARRAY_AGG(g.id ORDER BY g.id) FROM film_genres fg JOIN genres g ON fg.genre_id = g.id " +
+                    "WHERE fg.film_id = f.id) AS genre_ids, " +
+                    "(SELECT ARRAY_AGG(g.name ORDER BY g.id) FROM film_genres fg JOIN genres g ON fg.genre_id = g.id " +
+                    "WHERE fg.film_id = f.id) AS genre_names " +
                     "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id";
-    private static final String UPDATE_FILM_QUERY =
-            "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
-    private static final String FIND_FILM_BY_ID_QUERY =
-            "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.id AS mpa_id, m.name AS mpa_name " +
-                    "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id WHERE f.id = ?";
+    private static final String STREAM_ALL_FILMS_QUERY = FIND_ALL_FILMS_QUERY + " ORDER BY f.id";
+    private static final String FIND_FILMS_PAGE_QUERY = FIND_ALL_FILMS_QUERY +
+            " WHERE f.id > ? ORDER BY f.id LIMIT ?";
+    private static final String FIND_FILMS_BY_IDS_QUERY = FIND_ALL_FILMS_QUERY + " WHERE f.id %s";
+    private static final String UPDATE_FILM_COLUMNS_QUERY = "UPDATE films SET %s WHERE id = ?";
+    private static final String LOCK_FILM_QUERY =
+            "SELECT name, description, release_date, duration, mpa_id FROM films WHERE id = ? FOR UPDATE";
+    private static final String FIND_FILM_BY_ID_QUERY = FIND_ALL_FILMS_QUERY + " WHERE f.id = ?";
     private static final String INSERT_FILM_QUERY =
             "INSERT INTO films(name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
     private static final String INSERT_LIKE_QUERY = "INSERT INTO likes(film_id, user_id)" +
             "VALUES (?, ?)";
+    private static final String COUNT_LIKE_QUERY = "SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?";
+    private static final String INSERT_LIKE_IF_ABSENT_QUERY = "INSERT INTO likes(film_id, user_id) " +
+            "SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
     private static final String DELETE_LIKE_QUERY = "DELETE FROM likes where film_id = ? AND user_id = ?";
-    private static final String GET_POPULAR_QUERY =
-            "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, " +
-                    "m.id AS mpa_id, m.name AS mpa_name, " +
-                    "COUNT(l.user_id) AS likes_count " +
+    private static final String LIKES_COUNT_BY_FILM_QUERY = "SELECT id, likes_count FROM films";
+    private static final String CHANGE_LIKES_COUNT_QUERY = "UPDATE films SET likes_count = likes_count + ? WHERE id = ?";
+    private static final String FIND_LIKES_COUNT_DRIFT_QUERY =
+            "SELECT f.id, f.likes_count, (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id) AS actual_count " +
+                    "FROM films f WHERE f.id > ? ORDER BY f.id LIMIT ?";
+    private static final String FIX_LIKES_COUNT_QUERY =
+            "UPDATE films SET likes_count = ? WHERE id = ? AND likes_count = ?";
+    private static final String FIND_FILM_CATEGORIES_QUERY =
+            "SELECT f.id, EXTRACT(YEAR FROM f.release_date) AS release_year, fg.genre_id " +
                     "FROM films f " +
-                    "LEFT JOIN mpa m ON f.mpa_id = m.id " +
-                    "LEFT JOIN likes l ON f.id = l.film_id " +
-                    "GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, m.id, m.name " +
-                    "ORDER BY likes_count DESC " +
-                    "LIMIT ?";
-    private static final String DELETE_FILM_GENRES_QUERY =
-            "DELETE FROM film_genres WHERE film_id = ?";
+                    "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
+                    "ORDER BY f.id";
+    private static final String FIND_FILM_TEXTS_QUERY = "SELECT id, name, description FROM films";
+    private static final String FIND_ALL_LIKES_QUERY =
+            "SELECT film_id, user_id FROM likes ORDER BY film_id, user_id";
+    private static final String DELETE_FILM_GENRE_QUERY =
+            "DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?";
+    private static final String FIND_GENRE_IDS_BY_FILM_ID_QUERY =
+            "SELECT genre_id FROM film_genres WHERE film_id = ?";
 
-    private static final String INSERT_FILM_GENRE_QUERY =
-            "INSERT INTO film_genres(film_id, genre_id) VALUES (?, ?)";
+    // MERGE, а не INSERT: параллельное обновление могло уже добавить тот же жанр
+    private static final String MERGE_FILM_GENRE_QUERY =
+            "MERGE INTO film_genres(film_id, genre_id) KEY (film_id, genre_id) VALUES (?, ?)";
 
     private static final String FIND_GENRES_BY_FILM_ID_QUERY =
             "SELECT g.id, g.name FROM film_genres fg " +
                     "JOIN genres g ON fg.genre_id = g.id " +
                     "WHERE fg.film_id = ? ORDER BY g.id";
 
-    public FilmDbStorage(JdbcTemplate jdbc, RowMapper<Film> mapper) {
+    private final FilmPopularityIndex popularityIndex;
+    private final LikeMatrixIndex likeMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final ChangeVersions versions;
+    private final FilmResultSetExtractor extractor;
+
+    public FilmDbStorage(JdbcTemplate jdbc,
+                         RowMapper<Film> mapper,
+                         FilmPopularityIndex popularityIndex,
+                         LikeMatrixIndex likeMatrix,
+                         FilmSearchIndex searchIndex,
+                         ChangeVersions versions) {
         super(jdbc, mapper);
+        this.popularityIndex = popularityIndex;
+        this.likeMatrix = likeMatrix;
+        this.searchIndex = searchIndex;
+        this.versions = versions;
+        this.extractor = new FilmResultSetExtractor(mapper);
+    }
+
+    @PostConstruct
+    public void loadIndexes() {
+        loadPopularity();
+        loadLikeMatrix();
+        loadSearchIndex();
+    }
+
+    public void loadPopularity() {
+        Map<Long, Long> likesByFilm = new HashMap<>();
+        measure(LIKES_COUNT_BY_FILM_QUERY, () -> {
+            jdbc.query(LIKES_COUNT_BY_FILM_QUERY, rs -> {
+                likesByFilm.put(rs.getLong("id"), rs.getLong("likes_count"));
+            });
+            return likesByFilm;
+        }, Map::size);
+        popularityIndex.rebuild(likesByFilm);
+        loadCategories();
+    }
+
+    private void loadCategories() {
+        Map<Long, Integer> years = new HashMap<>();
+        Map<Long, List<Integer>> genres = new HashMap<>();
+        measure(FIND_FILM_CATEGORIES_QUERY, () -> {
+            jdbc.query(FIND_FILM_CATEGORIES_QUERY, rs -> {
+                long filmId = rs.getLong("id");
+                years.put(filmId, rs.getInt("release_year"));
+                int genreId = rs.getInt("genre_id");
+                if (!rs.wasNull()) {
+                    genres.computeIfAbsent(filmId, id -> new ArrayList<>()).add(genreId);
+                }
+            });
+            return years;
+        }, Map::size);
+        years.forEach((filmId, year) -> popularityIndex.categorize(filmId, year,
+                genres.getOrDefault(filmId, List.of()).stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public void loadSearchIndex() {
+        searchIndex.clear();
+        FilmSearchIndex.Loader loader = searchIndex.loader();
+        measure(FIND_FILM_TEXTS_QUERY, () -> {
+            jdbc.query(FIND_FILM_TEXTS_QUERY, rs -> {
+                loader.add(rs.getLong("id"), rs.getString("name"), rs.getString("description"));
+            });
+            return loader.finish();
+        }, Integer::intValue);
+    }
+
+    public void loadLikeMatrix() {
+        LikeMatrixIndex.Loader loader = likeMatrix.reload();
+        measure(FIND_ALL_LIKES_QUERY, () -> {
+            jdbc.query(FIND_ALL_LIKES_QUERY, rs -> {
+                loader.add(rs.getLong("film_id"), rs.getLong("user_id"));
+            });
+            return loader.finish();
+        }, Integer::intValue);
     }
 
     @Override
+    @Transactional
     public void save(Film film) {
         if (film.getId() == 0) {
             long id = insert(INSERT_FILM_QUERY,
@@ -62,59 +184,402 @@ public class FilmDbStorage extends BaseRepository<Film> implements FilmStorage {
                     film.getMpa().getId()
             );
             film.setId(id);
-        } else {
-            update(UPDATE_FILM_QUERY,
-                    film.getName(),
-                    film.getDescription(),
-                    film.getReleaseDate(),
-                    film.getDuration(),
-                    film.getMpa().getId(),
-                    film.getId()
-            );
+            writeGenreDiff(id, Set.of(), film.genreIds());
+            afterCommit(indexUpdate(film, true, true));
+            film.markPersisted(true);
+            versions.filmChanged(id);
+            return;
+        }
+
+        Film.PersistedState state = lockStoredState(film.getId());
+        boolean textChanged = state == null
+                || !Objects.equals(state.name(), film.getName())
+                || !Objects.equals(state.description(), film.getDescription());
+        boolean dateChanged = state == null || !Objects.equals(state.releaseDate(), film.getReleaseDate());
+
+        boolean columnsChanged = updateChangedColumns(film, state);
+        Set<Integer> storedGenreIds = state == null ? Set.of() : state.genreIds();
+        boolean genresChanged = writeGenreDiff(film.getId(), storedGenreIds, film.genreIds());
+        film.markPersisted(true);
+        if (!columnsChanged && !genresChanged) {
+            return;
+        }
+
+        if (dateChanged || genresChanged || textChanged) {
+            afterCommit(indexUpdate(film, dateChanged || genresChanged, textChanged));
+        }
+        versions.filmChanged(film.getId());
+    }
+
+    private boolean updateChangedColumns(Film film, Film.PersistedState state) {
+        List<String> columns = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (state == null || !Objects.equals(state.name(), film.getName())) {
+            columns.add("name = ?");
+            args.add(film.getName());
+        }
+        if (state == null || !Objects.equals(state.description(), film.getDescription())) {
+            columns.add("description = ?");
+            args.add(film.getDescription());
+        }
+        if (state == null || !Objects.equals(state.releaseDate(), film.getReleaseDate())) {
+            columns.add("release_date = ?");
+            args.add(film.getReleaseDate());
+        }
+        if (state == null || Double.compare(state.duration(), film.getDuration()) != 0) {
+            columns.add("duration = ?");
+            args.add(film.getDuration());
+        }
+        if (state == null || state.mpaId() != film.getMpa().getId()) {
+            columns.add("mpa_id = ?");
+            args.add(film.getMpa().getId());
+        }
+        if (columns.isEmpty()) {
+            return false;
         }
+        args.add(film.getId());
+        update(UPDATE_FILM_COLUMNS_QUERY.formatted(String.join(", ", columns)), args.toArray());
+        return true;
+    }
 
-        saveGenres(film);
+    // Сравнение идёт со строкой, заблокированной до конца транзакции, а не со снимком, прочитанным
+    // до неё: иначе изменение, закоммиченное между чтением и записью, было бы молча потеряно.
+    // Жанры читаются после блокировки, поэтому параллельные обновления одного фильма идут по очереди.
+    private Film.PersistedState lockStoredState(long filmId) {
+        List<Film.PersistedState> rows = measure(LOCK_FILM_QUERY, () -> jdbc.query(LOCK_FILM_QUERY,
+                (rs, rowNum) -> new Film.PersistedState(
+                        rs.getString("name"),
+                        rs.getString("description"),
+                        rs.getObject("release_date", LocalDate.class),
+                        rs.getDouble("duration"),
+                        rs.getInt("mpa_id"),
+                        null),
+                filmId), List::size);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Film.PersistedState row = rows.get(0);
+        return new Film.PersistedState(row.name(), row.description(), row.releaseDate(), row.duration(),
+                row.mpaId(), findGenreIds(filmId));
     }
 
-    private void saveGenres(Film film) {
-        jdbc.update(DELETE_FILM_GENRES_QUERY, film.getId());
+    private Set<Integer> findGenreIds(long filmId) {
+        Set<Integer> genreIds = new TreeSet<>();
+        measure(FIND_GENRE_IDS_BY_FILM_ID_QUERY, () -> {
+            jdbc.query(FIND_GENRE_IDS_BY_FILM_ID_QUERY, rs -> {
+                genreIds.add(rs.getInt("genre_id"));
+            }, filmId);
+            return genreIds;
+        }, Set::size);
+        return genreIds;
+    }
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            List<Object[]> batchArgs = new ArrayList<>();
-            for (Genre genre : film.getGenres()) {
-                batchArgs.add(new Object[]{film.getId(), genre.getId()});
+    private boolean writeGenreDiff(long filmId, Set<Integer> stored, Set<Integer> target) {
+        List<Object[]> removed = stored.stream()
+                .filter(genreId -> !target.contains(genreId))
+                .map(genreId -> new Object[]{filmId, genreId})
+                .toList();
+        List<Object[]> added = target.stream()
+                .filter(genreId -> !stored.contains(genreId))
+                .map(genreId -> new Object[]{filmId, genreId})
+                .toList();
+        if (!removed.isEmpty()) {
+            batchUpdate(DELETE_FILM_GENRE_QUERY, removed);
+        }
+        if (!added.isEmpty()) {
+            batchUpdate(MERGE_FILM_GENRE_QUERY, added);
+        }
+        return !removed.isEmpty() || !added.isEmpty();
+    }
+
+    @Override
+    @Transactional
+    public void saveAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        measure(INSERT_FILM_QUERY, () -> jdbc.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_FILM_QUERY, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setObject(3, film.getReleaseDate());
+                        ps.setDouble(4, film.getDuration());
+                        ps.setInt(5, film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                },
+                keyHolder), BaseRepository::affectedRows);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> genreArgs = new ArrayList<>();
+        List<Runnable> categories = new ArrayList<>(films.size());
+        FilmSearchIndex.Loader texts = searchIndex.loader();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            categories.add(indexUpdate(film, true, false));
+            texts.add(film.getId(), film.getName(), film.getDescription());
+            film.markPersisted(true);
+            versions.filmChanged(film.getId());
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    genreArgs.add(new Object[]{film.getId(), genre.getId()});
+                }
             }
-            jdbc.batchUpdate(INSERT_FILM_GENRE_QUERY, batchArgs);
         }
+        if (!genreArgs.isEmpty()) {
+            batchUpdate(MERGE_FILM_GENRE_QUERY, genreArgs);
+        }
+        afterCommit(() -> {
+            categories.forEach(Runnable::run);
+            texts.finish();
+        });
+    }
+
+    // Значения фильма копируются сразу: индексы обновятся после коммита, а объект к тому времени может измениться
+    private Runnable indexUpdate(Film film, boolean categories, boolean text) {
+        long filmId = film.getId();
+        int releaseYear = film.getReleaseDate().getYear();
+        int[] genreIds = film.genreIds().stream().mapToInt(Integer::intValue).toArray();
+        String name = film.getName();
+        String description = film.getDescription();
+        return () -> {
+            if (categories) {
+                popularityIndex.categorize(filmId, releaseYear, genreIds);
+            }
+            if (text) {
+                searchIndex.index(filmId, name, description);
+            }
+        };
     }
 
     @Override
     public List<Film> getAll() {
-        return findMany(FIND_ALL_FILMS_QUERY);
+        return findFilms(FIND_ALL_FILMS_QUERY);
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return findFilms(FIND_FILMS_PAGE_QUERY, afterId, limit);
+    }
+
+    @Override
+    public void forEachChunk(int chunkSize, Consumer<List<Film>> consumer) {
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        int[] rowNum = {0};
+        measure(STREAM_ALL_FILMS_QUERY, () -> {
+            jdbc.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(STREAM_ALL_FILMS_QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(chunkSize);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                chunk.add(extractor.mapFilm(rs, rowNum[0]++));
+                if (chunk.size() == chunkSize) {
+                    consumer.accept(new ArrayList<>(chunk));
+                    chunk.clear();
+                }
+            });
+            return rowNum[0];
+        }, Integer::intValue);
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
     }
 
     @Override
     public Optional<Film> findById(long id) {
-        return findOne(FIND_FILM_BY_ID_QUERY, id);
+        return findFilms(FIND_FILM_BY_ID_QUERY, id).stream().findFirst();
+    }
+
+    @Override
+    public List<Film> getMostPopular(int count, int from, Integer genreId, Integer year) {
+        return getByIds(popularityIndex.getTopFilmIds(count, from, genreId, year));
+    }
+
+    @Override
+    public List<Film> getRecommendations(long userId, int count) {
+        return getByIds(likeMatrix.recommend(userId, count));
     }
 
     @Override
-    public List<Film> getMostPopular(int count) {
-        return findMany(GET_POPULAR_QUERY, count);
+    public List<Film> search(String query, int count, int from) {
+        return getByIds(searchIndex.search(query, count, from));
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Film> films = IdSetLookup.findAll(FIND_FILMS_BY_IDS_QUERY, ids, this::findFilms).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Фильмы вместе с рейтингом и жанрами за одно обращение к базе
+    private List<Film> findFilms(String query, Object... params) {
+        return measure(query, () -> jdbc.query(query, extractor, params), List::size);
+    }
+
+    /**
+     * Сверяет likes_count с таблицей likes порциями по chunkSize фильмов и исправляет расхождения.
+     * Счётчик перезаписывается, только если не изменился с момента чтения, поэтому параллельные
+     * лайки не теряются: такой фильм досчитается при следующей сверке. Исправленное значение
+     * переносится и в рейтинг популярности.
+     *
+     * @return количество исправленных счётчиков
+     */
+    public int reconcileLikeCounts(int chunkSize) {
+        int corrected = 0;
+        long[] lastId = {0};
+        while (true) {
+            List<Object[]> fixes = new ArrayList<>();
+            long afterId = lastId[0];
+            int[] rows = {0};
+            measure(FIND_LIKES_COUNT_DRIFT_QUERY, () -> {
+                jdbc.query(FIND_LIKES_COUNT_DRIFT_QUERY, rs -> {
+                    lastId[0] = rs.getLong("id");
+                    rows[0]++;
+                    long stored = rs.getLong("likes_count");
+                    long actual = rs.getLong("actual_count");
+                    if (stored != actual) {
+                        fixes.add(new Object[]{actual, lastId[0], stored});
+                    }
+                }, afterId, chunkSize);
+                return rows[0];
+            }, Integer::intValue);
+            if (!fixes.isEmpty()) {
+                int[] fixed = batchUpdate(FIX_LIKES_COUNT_QUERY, fixes);
+                for (int i = 0; i < fixed.length; i++) {
+                    if (fixed[i] > 0) {
+                        long filmId = (long) fixes.get(i)[1];
+                        long actual = (long) fixes.get(i)[0];
+                        afterCommit(() -> popularityIndex.setLikes(filmId, actual));
+                        versions.likesChanged(filmId);
+                    }
+                }
+                corrected += Arrays.stream(fixed).sum();
+            }
+            if (rows[0] < chunkSize) {
+                return corrected;
+            }
+        }
     }
 
     @Override
+    @Transactional
     public void removeLike(Film film, long userId) {
-        jdbc.update(DELETE_LIKE_QUERY, film.getId(), userId);
+        if (updateRows(DELETE_LIKE_QUERY, film.getId(), userId) > 0) {
+            updateRows(CHANGE_LIKES_COUNT_QUERY, -1, film.getId());
+            afterCommit(() -> {
+                popularityIndex.decrement(film.getId());
+                likeMatrix.unlike(film.getId(), userId);
+            });
+            versions.likesChanged(film.getId());
+        }
     }
 
     @Override
+    @Transactional
     public void addLike(Film film, long userId) {
-        String checkSql = "SELECT COUNT(*) FROM likes WHERE film_id = ? AND user_id = ?";
-        Integer count = jdbc.queryForObject(checkSql, Integer.class, film.getId(), userId);
+        Integer count = measure(COUNT_LIKE_QUERY,
+                () -> jdbc.queryForObject(COUNT_LIKE_QUERY, Integer.class, film.getId(), userId), result -> 1);
 
         if (count == 0) {
-            jdbc.update(INSERT_LIKE_QUERY, film.getId(), userId);
+            updateRows(INSERT_LIKE_QUERY, film.getId(), userId);
+            updateRows(CHANGE_LIKES_COUNT_QUERY, 1, film.getId());
+            afterCommit(() -> {
+                popularityIndex.increment(film.getId());
+                likeMatrix.like(film.getId(), userId);
+            });
+            versions.likesChanged(film.getId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void applyLikeChanges(List<LikeChange> changes) {
+        List<LikeChange> added = changes.stream().filter(LikeChange::liked).toList();
+        List<LikeChange> removed = changes.stream().filter(change -> !change.liked()).toList();
+
+        int[] inserted = batchUpdate(INSERT_LIKE_IF_ABSENT_QUERY, added.stream()
+                .map(change -> new Object[]{change.filmId(), change.userId(), change.filmId(), change.userId()})
+                .toList());
+        int[] deleted = batchUpdate(DELETE_LIKE_QUERY, removed.stream()
+                .map(change -> new Object[]{change.filmId(), change.userId()})
+                .toList());
+
+        Map<Long, Long> deltas = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                deltas.merge(added.get(i).filmId(), 1L, Long::sum);
+            }
+        }
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                deltas.merge(removed.get(i).filmId(), -1L, Long::sum);
+            }
         }
+        List<Object[]> counterArgs = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .toList();
+        if (!counterArgs.isEmpty()) {
+            batchUpdate(CHANGE_LIKES_COUNT_QUERY, counterArgs);
+        }
+
+        List<LikeChange> applied = new ArrayList<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                applied.add(added.get(i));
+            }
+        }
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                applied.add(removed.get(i));
+            }
+        }
+        afterCommit(() -> {
+            for (LikeChange change : applied) {
+                if (change.liked()) {
+                    popularityIndex.increment(change.filmId());
+                    likeMatrix.like(change.filmId(), change.userId());
+                } else {
+                    popularityIndex.decrement(change.filmId());
+                    likeMatrix.unlike(change.filmId(), change.userId());
+                }
+            }
+        });
+        applied.forEach(change -> versions.likesChanged(change.filmId()));
+    }
+
+    // Индексы в памяти меняются только после коммита: при откате транзакции они не должны
+    // расходиться с базой. Регистрируется раньше версий, чтобы новый ETag не опережал данные.
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
     }
 }
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Выборка по набору id с ограниченным числом разных текстов запроса.
+ * Небольшие наборы подставляются списком IN, дополненным повтором последнего id до ближайшей степени двойки,
+ * большие передаются одним параметром-массивом (= ANY(?)). Очень большие наборы разбиваются на порции.
+ * Запрос задаётся шаблоном с %s на месте условия, например "SELECT * FROM users WHERE id %s".
+ */
+final class IdSetLookup {
+    static final int MAX_INLINE_IDS = 32;
+    static final int CHUNK_SIZE = 10_000;
+
+    private static final String ARRAY_CONDITION = "= ANY(?)";
+    private static final String[] INLINE_CONDITIONS = inlineConditions();
+
+    private IdSetLookup() {
+    }
+
+    static <T> List<T> findAll(String template, Collection<? extends Number> ids, ChunkQuery<T> query) {
+        List<T> result = new ArrayList<>();
+        forEachChunk(template, ids, (sql, params) -> result.addAll(query.find(sql, params)));
+        return result;
+    }
+
+    /**
+     * Вызывает action для каждой порции id с готовым текстом запроса и параметрами, порции идут в порядке ids.
+     */
+    static void forEachChunk(String template, Collection<? extends Number> ids, BiConsumer<String, Object[]> action) {
+        List<? extends Number> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += CHUNK_SIZE) {
+            List<? extends Number> chunk = idList.subList(from, Math.min(idList.size(), from + CHUNK_SIZE));
+            action.accept(template.formatted(condition(chunk.size())), parameters(chunk));
+        }
+    }
+
+    static String condition(int size) {
+        return size > MAX_INLINE_IDS ? ARRAY_CONDITION : INLINE_CONDITIONS[Integer.numberOfTrailingZeros(bucket(size))];
+    }
+
+    static Object[] parameters(List<? extends Number> ids) {
+        if (ids.size() > MAX_INLINE_IDS) {
+            return new Object[]{ids.toArray()};
+        }
+        Object[] params = new Object[bucket(ids.size())];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = ids.get(Math.min(i, ids.size() - 1));
+        }
+        return params;
+    }
+
+    private static int bucket(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static String[] inlineConditions() {
+        String[] conditions = new String[Integer.numberOfTrailingZeros(MAX_INLINE_IDS) + 1];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = "IN (" + "?, ".repeat((1 << i) - 1) + "?)";
+        }
+        return conditions;
+    }
+
+    @FunctionalInterface
+    interface ChunkQuery<T> {
+        List<T> find(String query, Object[] params);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Периодически сверяет денормализованный films.likes_count с таблицей likes.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+public class LikeCountReconciler {
+    static final String CORRECTED_COUNTER_NAME = "filmorate.likes.count.corrected";
+
+    private final FilmDbStorage filmStorage;
+    private final int chunkSize;
+    private final Counter corrected;
+
+    public LikeCountReconciler(FilmDbStorage filmStorage,
+                               @Value("${filmorate.likes.reconciliation.chunk-size:1000}") int chunkSize) {
+        this.filmStorage = filmStorage;
+        this.chunkSize = chunkSize;
+        this.corrected = Counter.builder(CORRECTED_COUNTER_NAME)
+                .description("Счётчики лайков, исправленные сверкой с таблицей likes")
+                .register(Metrics.globalRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.reconciliation.interval:PT1H}",
+            initialDelayString = "${filmorate.likes.reconciliation.interval:PT1H}")
+    public int reconcile() {
+        int fixed = filmStorage.reconcileLikeCounts(chunkSize);
+        corrected.increment(fixed);
+        if (fixed > 0) {
+            log.warn("Сверка лайков исправила {} счётчиков", fixed);
+        } else {
+            log.debug("Сверка лайков: расхождений нет");
+        }
+        return fixed;
+    }
+}
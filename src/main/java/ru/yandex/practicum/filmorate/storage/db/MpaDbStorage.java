@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage.db;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.DictionaryStorage;
@@ -10,9 +11,11 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Profile("!inmemory")
 public class MpaDbStorage extends BaseRepository<Mpa> implements DictionaryStorage<Mpa> {
     private static final String FIND_ALL_QUERY = "SELECT * FROM mpa";
     private static final String FIND_BY_ID_QUERY = "SELECT * FROM mpa WHERE id = ?";
+    private static final String FIND_BY_IDS_QUERY = "SELECT * FROM mpa WHERE id %s";
 
     public MpaDbStorage(JdbcTemplate jdbc, RowMapper<Mpa> mapper) {
         super(jdbc, mapper);
@@ -27,4 +30,13 @@ public class MpaDbStorage extends BaseRepository<Mpa> implements DictionaryStora
     public Optional<Mpa> get(int id) {
         return findOne(FIND_BY_ID_QUERY, id);
     }
+
+    @Override
+    public List<Mpa> getByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        return IdSetLookup.findAll(FIND_BY_IDS_QUERY, ids, this::findMany);
+    }
 }
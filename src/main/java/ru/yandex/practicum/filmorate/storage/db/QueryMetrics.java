@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Метрики запросов одного репозитория. Имя запроса - имя константы *_QUERY, в которой лежит SQL.
+ * Для констант-шаблонов с %s (списки параметров IN) запрос узнаётся по части до первого %s.
+ */
+final class QueryMetrics {
+    static final String TIMER_NAME = "filmorate.db.query";
+    static final String ROWS_NAME = "filmorate.db.query.rows";
+    static final String ERRORS_NAME = "filmorate.db.query.errors";
+    static final String UNNAMED_QUERY = "unnamed";
+
+    private static final String QUERY_SUFFIX = "_QUERY";
+    private static final String TEMPLATE_MARKER = "%s";
+    private static final Map<Class<?>, QueryMetrics> BY_REPOSITORY = new ConcurrentHashMap<>();
+
+    private final String repository;
+    private final Map<String, String> namesBySql = new HashMap<>();
+    private final List<Map.Entry<String, String>> namesByTemplatePrefix;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private QueryMetrics(Class<?> repositoryClass) {
+        repository = repositoryClass.getSimpleName();
+        Map<String, String> templates = new HashMap<>();
+        for (Field field : repositoryClass.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) || field.getType() != String.class
+                    || !field.getName().endsWith(QUERY_SUFFIX)) {
+                continue;
+            }
+            field.setAccessible(true);
+            String sql;
+            try {
+                sql = (String) field.get(null);
+            } catch (IllegalAccessException e) {
+                continue;
+            }
+            int marker = sql.indexOf(TEMPLATE_MARKER);
+            if (marker >= 0) {
+                templates.put(sql.substring(0, marker), field.getName());
+            } else {
+                namesBySql.put(sql, field.getName());
+            }
+        }
+        namesByTemplatePrefix = templates.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, String> e) -> e.getKey().length()).reversed())
+                .toList();
+    }
+
+    static QueryMetrics of(Class<?> repositoryClass) {
+        return BY_REPOSITORY.computeIfAbsent(ClassUtils.getUserClass(repositoryClass), QueryMetrics::new);
+    }
+
+    String nameOf(String sql) {
+        String name = namesBySql.get(sql);
+        if (name != null) {
+            return name;
+        }
+        for (Map.Entry<String, String> template : namesByTemplatePrefix) {
+            if (sql.startsWith(template.getKey())) {
+                return template.getValue();
+            }
+        }
+        return UNNAMED_QUERY;
+    }
+
+    <R> R record(String sql, Supplier<R> call, ToIntFunction<R> rowCounter) {
+        String query = nameOf(sql);
+        Meters queryMeters = meters.computeIfAbsent(query, this::createMeters);
+        long start = System.nanoTime();
+        try {
+            R result = call.get();
+            queryMeters.rows().record(rowCounter.applyAsInt(result));
+            return result;
+        } catch (RuntimeException e) {
+            Metrics.counter(ERRORS_NAME,
+                    "repository", repository,
+                    "query", query,
+                    "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            queryMeters.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meters createMeters(String query) {
+        Timer timer = Timer.builder(TIMER_NAME)
+                .description("Время выполнения SQL-запроса")
+                .tag("repository", repository)
+                .tag("query", query)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+        DistributionSummary rows = DistributionSummary.builder(ROWS_NAME)
+                .description("Количество строк, прочитанных или изменённых запросом")
+                .tag("repository", repository)
+                .tag("query", query)
+                .register(Metrics.globalRegistry);
+        return new Meters(timer, rows);
+    }
+
+    private record Meters(Timer timer, DistributionSummary rows) {
+    }
+}
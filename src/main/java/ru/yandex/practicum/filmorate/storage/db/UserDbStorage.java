@@ -1,28 +1,45 @@
 package ru.yandex.practicum.filmorate.storage.db;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Repository
+@Profile("!inmemory")
 public class UserDbStorage extends BaseRepository<User> implements UserStorage {
     private static final String FIND_ALL_USERS_QUERY = "SELECT * FROM users";
+    private static final String FIND_USERS_PAGE_QUERY = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
     private static final String FIND_USER_BY_ID_QUERY = "SELECT * FROM users WHERE id = ?";
+    private static final String FIND_USERS_BY_IDS_QUERY = "SELECT * FROM users WHERE id %s";
+    private static final String FIND_ALL_FRIENDSHIPS_QUERY =
+            "SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id";
     private static final String FIND_USER_FRIENDS_BY_ID_QUERY =
             "SELECT u.id, u.name, u.email, u.login, u.birthday FROM friends f " +
             "JOIN users u on u.id = f.friend_id " +
             "WHERE user_id = ?";
+    private static final String FIND_USER_FRIENDS_PAGE_QUERY =
+            "SELECT u.id, u.name, u.email, u.login, u.birthday FROM friends f " +
+            "JOIN users u on u.id = f.friend_id " +
+            "WHERE f.user_id = ? AND f.friend_id > ? ORDER BY f.friend_id LIMIT ?";
     private static final String UPDATE_USER_QUERY = "UPDATE users SET name = ?, email = ?, login = ?, birthday = ? WHERE id = ?";
     private static final String INSERT_USER_QUERY = "INSERT INTO users(name, email, login, birthday)" +
             "VALUES (?, ?, ?, ?)";
@@ -31,8 +48,27 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
     private static final String DELETE_FRIEND_QUERY = "DELETE FROM friends where user_id = ? AND friend_id = ?";
 
 
-    public UserDbStorage(JdbcTemplate jdbc, RowMapper<User> mapper) {
+    private final FriendGraphIndex friendGraph;
+    private final ChangeVersions versions;
+
+    public UserDbStorage(JdbcTemplate jdbc,
+                         RowMapper<User> mapper,
+                         FriendGraphIndex friendGraph,
+                         ChangeVersions versions) {
         super(jdbc, mapper);
+        this.friendGraph = friendGraph;
+        this.versions = versions;
+    }
+
+    @PostConstruct
+    public void loadFriendGraph() {
+        FriendGraphIndex.Loader loader = friendGraph.reload();
+        measure(FIND_ALL_FRIENDSHIPS_QUERY, () -> {
+            jdbc.query(FIND_ALL_FRIENDSHIPS_QUERY, rs -> {
+                loader.add(rs.getLong("user_id"), rs.getLong("friend_id"));
+            });
+            return loader.finish();
+        }, Integer::intValue);
     }
 
     @Override
@@ -56,6 +92,7 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
                     user.getId()
             );
         }
+        versions.usersChanged();
     }
 
     @Override
@@ -63,6 +100,11 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
         return findMany(FIND_ALL_USERS_QUERY);
     }
 
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return findMany(FIND_USERS_PAGE_QUERY, afterId, limit);
+    }
+
     @Override
     public Optional<User> findById(long id) {
         return findOne(FIND_USER_BY_ID_QUERY, id);
@@ -81,30 +123,82 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
     }
 
     @Override
-    public List<User> getListOfUsers(List<Long> list) {
-        if (list == null || list.isEmpty()) {
+    public List<User> getFriendsPage(long userId, long afterId, int limit) {
+        return findMany(FIND_USER_FRIENDS_PAGE_QUERY, userId, afterId, limit);
+    }
+
+    @Override
+    public List<User> getCommonFriends(long userId, long otherId) {
+        long[] commonIds = friendGraph.getCommonFriendIds(userId, otherId);
+        if (commonIds.length == 0) {
             return List.of();
         }
 
-        String placeholders = String.join(",", list.stream().map(id -> "?").toList());
+        // Общие друзья приходят из графа отсортированными по id
+        return getByIds(Arrays.stream(commonIds).boxed().toList());
+    }
 
-        String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ")";
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(long userId, int count) {
+        List<FriendGraphIndex.Candidate> candidates = friendGraph.suggest(userId, count);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
 
-        Object[] params = list.toArray();
+        Map<Long, User> users = findByIds(candidates.stream().map(FriendGraphIndex.Candidate::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
 
-        List<User> foundUsers = findMany(sql, params);
+        return candidates.stream()
+                .filter(candidate -> users.containsKey(candidate.userId()))
+                .map(candidate -> FriendSuggestion.builder()
+                        .user(users.get(candidate.userId()))
+                        .mutualFriends(candidate.mutualFriends())
+                        .build())
+                .toList();
+    }
 
-        if (foundUsers.size() != list.size()) {
+    @Override
+    public List<User> getListOfUsers(List<Long> list) {
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+
+        List<User> foundUsers = getByIds(list);
+
+        if (foundUsers.size() != new HashSet<>(list).size()) {
             throw new NotFoundException("Часть запрашиваемых пользователей не надены");
         }
 
         return foundUsers;
     }
 
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        List<Long> uniqueIds = ids.stream().distinct().toList();
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, User> users = findByIds(uniqueIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return uniqueIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<User> findByIds(List<Long> ids) {
+        return IdSetLookup.findAll(FIND_USERS_BY_IDS_QUERY, ids, this::findMany);
+    }
+
     @Override
     public void addFriendship(long userId, long friendId) {
         try {
-            jdbc.update(INSERT_FRIEND_QUERY, userId, friendId);
+            updateRows(INSERT_FRIEND_QUERY, userId, friendId);
+            friendGraph.addFriend(userId, friendId);
+            versions.usersChanged();
         } catch (DuplicateKeyException e) {
             throw new ValidationException("Пользователи уже друзья");
         }
@@ -112,6 +206,9 @@ public class UserDbStorage extends BaseRepository<User> implements UserStorage {
 
     @Override
     public void removeFriendship(long userId, long friendId) {
-        jdbc.update(DELETE_FRIEND_QUERY, userId, friendId);
+        if (updateRows(DELETE_FRIEND_QUERY, userId, friendId) > 0) {
+            friendGraph.removeFriend(userId, friendId);
+            versions.usersChanged();
+        }
     }
 }
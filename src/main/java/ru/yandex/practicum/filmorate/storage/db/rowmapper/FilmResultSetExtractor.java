@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage.db.rowmapper;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Собирает фильмы вместе с рейтингом и жанрами из одного запроса: жанры приходят
+ * параллельными массивами genre_ids и genre_names, упорядоченными по id жанра.
+ */
+public class FilmResultSetExtractor implements ResultSetExtractor<List<Film>> {
+    private final RowMapper<Film> filmMapper;
+
+    public FilmResultSetExtractor(RowMapper<Film> filmMapper) {
+        this.filmMapper = filmMapper;
+    }
+
+    @Override
+    public List<Film> extractData(ResultSet rs) throws SQLException {
+        List<Film> films = new ArrayList<>();
+        int rowNum = 0;
+        while (rs.next()) {
+            films.add(mapFilm(rs, rowNum++));
+        }
+        return films;
+    }
+
+    public Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        Film film = filmMapper.mapRow(rs, rowNum);
+        Object[] ids = toArray(rs.getArray("genre_ids"));
+        Object[] names = toArray(rs.getArray("genre_names"));
+        List<Genre> genres = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            genres.add(Genre.builder()
+                    .id(((Number) ids[i]).intValue())
+                    .name((String) names[i])
+                    .build());
+        }
+        film.setGenres(genres);
+        film.markPersisted(true);
+        return film;
+    }
+
+    private static Object[] toArray(Array array) throws SQLException {
+        if (array == null) {
+            return new Object[0];
+        }
+        try {
+            return (Object[]) array.getArray();
+        } finally {
+            array.free();
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class FilmRowMapper implements RowMapper<Film> {
                 .duration(resultSet.getDouble("duration"))
                 .mpa(mpa)
                 .build();
+        film.markPersisted(false);
         return film;
     }
 }
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Отображение id -> множество id, где множество хранится отсортированным массивом long.
+ * Чтение идёт без блокировок по неизменяемым массивам, изменения одного ключа
+ * сериализуются блокировкой из фиксированного набора полос и публикуют новую копию массива.
+ * <p>
+ * Поэтому добавление и удаление стоят O(n) от размера множества: лайк популярного фильма
+ * копирует весь массив его пользователей (8 байт на лайк). По LikeSetBenchmark (профиль benchmark)
+ * это около 7 мкс на операцию при 10 тысячах элементов и около 2.5 мс при миллионе;
+ * если у фильмов будут миллионы лайков, проекцию пользователей фильма стоит хранить кусками.
+ */
+public class ConcurrentLongSetMap {
+    private static final long[] EMPTY = new long[0];
+    private static final int STRIPES = 64;
+
+    private final Map<Long, long[]> sets = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+
+    public ConcurrentLongSetMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public long[] get(long key) {
+        return sets.getOrDefault(key, EMPTY);
+    }
+
+    public boolean contains(long key, long value) {
+        return Arrays.binarySearch(get(key), value) >= 0;
+    }
+
+    public boolean add(long key, long value) {
+        synchronized (lockFor(key)) {
+            long[] current = get(key);
+            int pos = Arrays.binarySearch(current, value);
+            if (pos >= 0) {
+                return false;
+            }
+            int insertAt = -pos - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = value;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            sets.put(key, updated);
+            return true;
+        }
+    }
+
+    public boolean remove(long key, long value) {
+        synchronized (lockFor(key)) {
+            long[] current = get(key);
+            int pos = Arrays.binarySearch(current, value);
+            if (pos < 0) {
+                return false;
+            }
+            if (current.length == 1) {
+                sets.remove(key);
+                return true;
+            }
+            long[] updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, pos);
+            System.arraycopy(current, pos + 1, updated, pos, current.length - pos - 1);
+            sets.put(key, updated);
+            return true;
+        }
+    }
+
+    public void put(long key, long[] sortedValues) {
+        synchronized (lockFor(key)) {
+            if (sortedValues.length == 0) {
+                sets.remove(key);
+            } else {
+                sets.put(key, sortedValues);
+            }
+        }
+    }
+
+    public void forEach(BiConsumer<Long, long[]> action) {
+        sets.forEach(action);
+    }
+
+    public int keyCount() {
+        return sets.size();
+    }
+
+    public void clear() {
+        sets.clear();
+    }
+
+    private Object lockFor(long key) {
+        return locks[Long.hashCode(key) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Рейтинг фильмов по количеству лайков, который поддерживается инкрементально.
+ * Фильмы упорядочены по убыванию лайков, при равенстве - по возрастанию id.
+ * Помимо общего рейтинга хранятся отдельные рейтинги по жанрам, годам выпуска и парам (жанр, год),
+ * чтобы отфильтрованный топ тоже читался из памяти без просмотра чужих фильмов.
+ */
+@Component
+public class FilmPopularityIndex {
+    private static final Comparator<Entry> RANK_ORDER = Comparator.comparingLong(Entry::likes)
+            .reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final int[] NO_GENRES = new int[0];
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANK_ORDER);
+    private final ConcurrentHashMap<Integer, NavigableSet<Entry>> rankingByGenre = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, NavigableSet<Entry>> rankingByYear = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, NavigableSet<Entry>> rankingByGenreAndYear = new ConcurrentHashMap<>();
+
+    public void rebuild(Map<Long, Long> likesByFilm) {
+        counters.clear();
+        ranking.clear();
+        rankingByGenre.clear();
+        rankingByYear.clear();
+        rankingByGenreAndYear.clear();
+        likesByFilm.forEach((filmId, likes) -> {
+            Counter counter = new Counter();
+            counter.likes = likes;
+            counters.put(filmId, counter);
+            ranking.add(new Entry(filmId, likes));
+        });
+    }
+
+    public void register(long filmId) {
+        counterOf(filmId);
+    }
+
+    /**
+     * Переносит фильм в рейтинги нужных жанров и года. Вызывается при каждом сохранении фильма,
+     * потому что жанры и дата выпуска могут измениться.
+     */
+    public void categorize(long filmId, Integer releaseYear, int[] genreIds) {
+        int year = releaseYear == null ? NO_YEAR : releaseYear;
+        int[] genres = genreIds == null ? NO_GENRES : Arrays.stream(genreIds).distinct().sorted().toArray();
+        Counter counter = counterOf(filmId);
+        synchronized (counter) {
+            Entry entry = new Entry(filmId, counter.likes);
+            int oldYear = counter.year;
+            int[] oldGenres = counter.genres;
+            for (int genreId : genres) {
+                segment(rankingByGenre, genreId).add(entry);
+                if (year != NO_YEAR) {
+                    segment(rankingByGenreAndYear, genreAndYear(genreId, year)).add(entry);
+                }
+            }
+            if (year != NO_YEAR) {
+                segment(rankingByYear, year).add(entry);
+            }
+            counter.year = year;
+            counter.genres = genres;
+            for (int genreId : oldGenres) {
+                boolean genreKept = Arrays.binarySearch(genres, genreId) >= 0;
+                if (!genreKept) {
+                    segment(rankingByGenre, genreId).remove(entry);
+                }
+                if (oldYear != NO_YEAR && (!genreKept || oldYear != year)) {
+                    segment(rankingByGenreAndYear, genreAndYear(genreId, oldYear)).remove(entry);
+                }
+            }
+            if (oldYear != NO_YEAR && oldYear != year) {
+                segment(rankingByYear, oldYear).remove(entry);
+            }
+        }
+    }
+
+    public void increment(long filmId) {
+        change(filmId, 1);
+    }
+
+    public void decrement(long filmId) {
+        change(filmId, -1);
+    }
+
+    /**
+     * Устанавливает абсолютное количество лайков, например после сверки счётчика с таблицей лайков.
+     */
+    public void setLikes(long filmId, long likes) {
+        Counter counter = counterOf(filmId);
+        synchronized (counter) {
+            move(filmId, counter, Math.max(0, likes));
+        }
+    }
+
+    public long getLikes(long filmId) {
+        Counter counter = counters.get(filmId);
+        return counter == null ? 0 : counter.likes;
+    }
+
+    public List<Long> getTopFilmIds(int count, int from) {
+        return getTopFilmIds(count, from, null, null);
+    }
+
+    /**
+     * Топ фильмов с необязательными фильтрами по жанру и году выпуска (null - без фильтра).
+     */
+    public List<Long> getTopFilmIds(int count, int from, Integer genreId, Integer year) {
+        NavigableSet<Entry> source;
+        if (genreId != null && year != null) {
+            source = rankingByGenreAndYear.get(genreAndYear(genreId, year));
+        } else if (genreId != null) {
+            source = rankingByGenre.get(genreId);
+        } else if (year != null) {
+            source = rankingByYear.get(year);
+        } else {
+            source = ranking;
+        }
+        if (source == null) {
+            return List.of();
+        }
+
+        List<Long> result = new ArrayList<>(Math.min(count, counters.size()));
+        // Пока лайк переносит фильм на новую позицию, обход может встретить обе записи
+        Set<Long> seen = new HashSet<>();
+        int skipped = 0;
+        for (Entry entry : source) {
+            if (!isCurrent(entry, genreId, year) || !seen.add(entry.filmId())) {
+                continue;
+            }
+            if (skipped < from) {
+                skipped++;
+                continue;
+            }
+            result.add(entry.filmId());
+            if (result.size() == count) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void change(long filmId, long delta) {
+        Counter counter = counterOf(filmId);
+        synchronized (counter) {
+            move(filmId, counter, Math.max(0, counter.likes + delta));
+        }
+    }
+
+    private void move(long filmId, Counter counter, long updated) {
+        long old = counter.likes;
+        if (updated == old) {
+            return;
+        }
+        // Новая позиция появляется до удаления старой, а актуальную из двух
+        // читатель определяет по счётчику, поэтому фильм не пропадает из выдачи.
+        Entry oldEntry = new Entry(filmId, old);
+        Entry newEntry = new Entry(filmId, updated);
+        ranking.add(newEntry);
+        forEachSegment(counter, set -> set.add(newEntry));
+        counter.likes = updated;
+        ranking.remove(oldEntry);
+        forEachSegment(counter, set -> set.remove(oldEntry));
+    }
+
+    private void forEachSegment(Counter counter, Consumer<NavigableSet<Entry>> action) {
+        int year = counter.year;
+        for (int genreId : counter.genres) {
+            action.accept(segment(rankingByGenre, genreId));
+            if (year != NO_YEAR) {
+                action.accept(segment(rankingByGenreAndYear, genreAndYear(genreId, year)));
+            }
+        }
+        if (year != NO_YEAR) {
+            action.accept(segment(rankingByYear, year));
+        }
+    }
+
+    private static long genreAndYear(int genreId, int year) {
+        return ((long) genreId << 32) | (year & 0xFFFFFFFFL);
+    }
+
+    private static <K> NavigableSet<Entry> segment(Map<K, NavigableSet<Entry>> segments, K key) {
+        return segments.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>(RANK_ORDER));
+    }
+
+    private Counter counterOf(long filmId) {
+        return counters.computeIfAbsent(filmId, id -> {
+            ranking.add(new Entry(id, 0));
+            return new Counter();
+        });
+    }
+
+    private boolean isCurrent(Entry entry, Integer genreId, Integer year) {
+        Counter counter = counters.get(entry.filmId());
+        if (counter == null || counter.likes != entry.likes()) {
+            return false;
+        }
+        if (year != null && counter.year != year) {
+            return false;
+        }
+        return genreId == null || Arrays.binarySearch(counter.genres, genreId) >= 0;
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+
+    private static final class Counter {
+        private volatile long likes;
+        private volatile int year = NO_YEAR;
+        private volatile int[] genres = NO_GENRES;
+    }
+}
@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Обратный индекс по названию и описанию фильмов: слово -> отсортированный массив id фильмов.
+ * Совпадение слова запроса в названии весит больше, чем в описании; при равном весе
+ * выше фильм с меньшим id.
+ */
+@Component
+public class FilmSearchIndex {
+    private static final long[] EMPTY = new long[0];
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingInt(Hit::score)
+            .reversed()
+            .thenComparingLong(Hit::filmId);
+
+    private final Map<String, long[]> namePostings = new ConcurrentHashMap<>();
+    private final Map<String, long[]> descriptionPostings = new ConcurrentHashMap<>();
+    private final Map<Long, Terms> termsByFilm = new ConcurrentHashMap<>();
+
+    public synchronized void clear() {
+        namePostings.clear();
+        descriptionPostings.clear();
+        termsByFilm.clear();
+    }
+
+    public synchronized void index(long filmId, String name, String description) {
+        Terms terms = new Terms(tokenize(name), tokenize(description));
+        Terms previous = termsByFilm.put(filmId, terms);
+        if (previous != null) {
+            unindex(filmId, previous);
+        }
+        terms.name().forEach(term -> namePostings.compute(term, (t, ids) -> insert(ids, filmId)));
+        terms.description().forEach(term -> descriptionPostings.compute(term, (t, ids) -> insert(ids, filmId)));
+    }
+
+    private void unindex(long filmId, Terms previous) {
+        previous.name().forEach(term -> namePostings.computeIfPresent(term, (t, ids) -> remove(ids, filmId)));
+        previous.description().forEach(term ->
+                descriptionPostings.computeIfPresent(term, (t, ids) -> remove(ids, filmId)));
+    }
+
+    /**
+     * Загрузчик для массового добавления фильмов: при загрузке индекса и пакетном импорте.
+     */
+    public Loader loader() {
+        return new Loader();
+    }
+
+    /**
+     * id фильмов, подходящих хотя бы под одно слово запроса, в порядке убывания релевантности,
+     * начиная с позиции from.
+     */
+    public List<Long> search(String query, int count, int from) {
+        Set<String> terms = tokenize(query);
+        if (terms.isEmpty() || count <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String term : terms) {
+            for (long filmId : namePostings.getOrDefault(term, EMPTY)) {
+                scores.merge(filmId, NAME_WEIGHT, Integer::sum);
+            }
+            for (long filmId : descriptionPostings.getOrDefault(term, EMPTY)) {
+                scores.merge(filmId, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+        }
+
+        if (from >= scores.size()) {
+            return List.of();
+        }
+        int keep = (int) Math.min((long) from + count, scores.size());
+        PriorityQueue<Hit> top = new PriorityQueue<>(keep + 1, BEST_FIRST.reversed());
+        scores.forEach((filmId, score) -> {
+            top.offer(new Hit(filmId, score));
+            if (top.size() > keep) {
+                top.poll();
+            }
+        });
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(BEST_FIRST);
+        return ranked.stream()
+                .skip(from)
+                .map(Hit::filmId)
+                .toList();
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        for (int i = 0; i <= normalized.length(); i++) {
+            char c = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    private static void publish(Map<String, long[]> postings, Map<String, LongArray> added) {
+        added.forEach((term, ids) -> {
+            long[] sorted = ids.toArray();
+            Arrays.sort(sorted);
+            postings.merge(term, sorted, FilmSearchIndex::merge);
+        });
+    }
+
+    // Слияние двух отсортированных списков без повторов
+    private static long[] merge(long[] left, long[] right) {
+        long[] merged = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length || j < right.length) {
+            long next;
+            if (j == right.length || (i < left.length && left[i] <= right[j])) {
+                next = left[i++];
+            } else {
+                next = right[j++];
+            }
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+        return size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    private static long[] insert(long[] ids, long filmId) {
+        if (ids == null) {
+            return new long[]{filmId};
+        }
+        int pos = Arrays.binarySearch(ids, filmId);
+        if (pos >= 0) {
+            return ids;
+        }
+        int insertAt = -pos - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = filmId;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        return updated;
+    }
+
+    private static long[] remove(long[] ids, long filmId) {
+        int pos = Arrays.binarySearch(ids, filmId);
+        if (pos < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] updated = new long[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, pos);
+        System.arraycopy(ids, pos + 1, updated, pos, ids.length - pos - 1);
+        return updated;
+    }
+
+    /**
+     * Копит id фильмов по словам в растущих буферах, а в finish() сортирует каждый список один раз
+     * и сливает с уже опубликованным. Добавление по одному через index() копирует весь список слова
+     * на каждый фильм, и частое слово обходится квадратично.
+     */
+    public final class Loader {
+        private final Map<String, LongArray> names = new HashMap<>();
+        private final Map<String, LongArray> descriptions = new HashMap<>();
+        private final Map<Long, Terms> terms = new HashMap<>();
+
+        private Loader() {
+        }
+
+        public void add(long filmId, String name, String description) {
+            Terms filmTerms = new Terms(tokenize(name), tokenize(description));
+            if (terms.put(filmId, filmTerms) != null) {
+                throw new IllegalArgumentException("Фильм id=" + filmId + " уже добавлен в загрузчик");
+            }
+            filmTerms.name().forEach(term -> names.computeIfAbsent(term, t -> new LongArray()).add(filmId));
+            filmTerms.description().forEach(term ->
+                    descriptions.computeIfAbsent(term, t -> new LongArray()).add(filmId));
+        }
+
+        public int finish() {
+            synchronized (FilmSearchIndex.this) {
+                terms.forEach((filmId, filmTerms) -> {
+                    Terms previous = termsByFilm.put(filmId, filmTerms);
+                    if (previous != null) {
+                        unindex(filmId, previous);
+                    }
+                });
+                publish(namePostings, names);
+                publish(descriptionPostings, descriptions);
+            }
+            return terms.size();
+        }
+    }
+
+    private record Terms(Set<String> name, Set<String> description) {
+    }
+
+    private record Hit(long filmId, int score) {
+    }
+}
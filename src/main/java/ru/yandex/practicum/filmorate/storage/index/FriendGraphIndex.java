@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя - отсортированный массив id друзей.
+ * Пересечение списков идёт слиянием, а при сильно разных размерах - галопирующим поиском
+ * по большему массиву, так что общие друзья считаются без объектов User и без запросов к базе.
+ * Рекомендации друзей обходят не больше maxNeighbours друзей пользователя и не больше maxEdges
+ * связей друзей-друзей, чтобы время ответа не зависело от числа друзей у популярных пользователей.
+ */
+@Component
+public class FriendGraphIndex {
+    private static final long[] EMPTY = new long[0];
+    private static final int GALLOP_RATIO = 32;
+    private static final int DEFAULT_MAX_NEIGHBOURS = 200;
+    private static final int DEFAULT_MAX_EDGES = 20_000;
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::mutualFriends)
+            .reversed()
+            .thenComparingLong(Candidate::userId);
+
+    private final ConcurrentLongSetMap friends = new ConcurrentLongSetMap();
+    private final int maxNeighbours;
+    private final int maxEdges;
+
+    public FriendGraphIndex() {
+        this(DEFAULT_MAX_NEIGHBOURS, DEFAULT_MAX_EDGES);
+    }
+
+    @Autowired
+    public FriendGraphIndex(@Value("${filmorate.friends.suggestions.max-neighbours:200}") int maxNeighbours,
+                            @Value("${filmorate.friends.suggestions.max-edges:20000}") int maxEdges) {
+        this.maxNeighbours = maxNeighbours;
+        this.maxEdges = maxEdges;
+    }
+
+    /**
+     * Очищает граф и возвращает загрузчик, который принимает пары (пользователь, друг),
+     * отсортированные по пользователю, а затем по другу.
+     */
+    public Loader reload() {
+        friends.clear();
+        return new Loader();
+    }
+
+    public boolean addFriend(long userId, long friendId) {
+        return friends.add(userId, friendId);
+    }
+
+    public boolean removeFriend(long userId, long friendId) {
+        return friends.remove(userId, friendId);
+    }
+
+    public boolean isFriend(long userId, long friendId) {
+        return friends.contains(userId, friendId);
+    }
+
+    public long[] getFriendIds(long userId) {
+        return friends.get(userId);
+    }
+
+    public long[] getCommonFriendIds(long userId, long otherId) {
+        return intersect(friends.get(userId), friends.get(otherId));
+    }
+
+    public final class Loader {
+        private long userId = -1;
+        private long[] buffer = new long[16];
+        private int size;
+        private int total;
+
+        private Loader() {
+        }
+
+        public void add(long userId, long friendId) {
+            if (userId != this.userId) {
+                flush();
+                this.userId = userId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = friendId;
+            total++;
+        }
+
+        public int finish() {
+            flush();
+            return total;
+        }
+
+        private void flush() {
+            if (size > 0) {
+                friends.put(userId, Arrays.copyOf(buffer, size));
+                size = 0;
+            }
+        }
+    }
+
+    /**
+     * Пользователи, которые есть в списках друзей у друзей userId, по убыванию числа таких общих друзей.
+     * Если друзей больше maxNeighbours, берётся равномерная выборка из них, а из списка каждого друга -
+     * равномерная выборка не больше своей доли от maxEdges, чтобы не предпочитать самые старые аккаунты.
+     */
+    public List<Candidate> suggest(long userId, int count) {
+        long[] own = friends.get(userId);
+        if (own.length == 0 || count <= 0) {
+            return List.of();
+        }
+        int stride = Math.max(1, (own.length + maxNeighbours - 1) / maxNeighbours);
+        int explored = (own.length + stride - 1) / stride;
+        int edgesPerNeighbour = Math.max(1, maxEdges / explored);
+
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (int i = 0; i < own.length; i += stride) {
+            long[] theirs = friends.get(own[i]);
+            int limit = Math.min(theirs.length, edgesPerNeighbour);
+            for (int k = 0; k < limit; k++) {
+                long candidate = theirs[(int) ((long) k * theirs.length / limit)];
+                if (candidate != userId && Arrays.binarySearch(own, candidate) < 0) {
+                    mutual.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        PriorityQueue<Candidate> top = new PriorityQueue<>(Math.min(count, mutual.size()) + 1,
+                BEST_FIRST.reversed());
+        mutual.forEach((candidate, mutualFriends) -> {
+            top.offer(new Candidate(candidate, mutualFriends));
+            if (top.size() > count) {
+                top.poll();
+            }
+        });
+        List<Candidate> result = new ArrayList<>(top);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    public record Candidate(long userId, int mutualFriends) {
+    }
+
+    static long[] intersect(long[] a, long[] b) {
+        if (a.length > b.length) {
+            long[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return EMPTY;
+        }
+        return b.length / a.length >= GALLOP_RATIO ? gallop(a, b) : merge(a, b);
+    }
+
+    private static long[] merge(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                result[count++] = small[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long[] gallop(long[] small, long[] large) {
+        long[] result = new long[small.length];
+        int count = 0;
+        int low = 0;
+        for (long value : small) {
+            int step = 1;
+            while (low + step < large.length && large[low + step] < value) {
+                step <<= 1;
+            }
+            int pos = Arrays.binarySearch(large, low, Math.min(low + step + 1, large.length), value);
+            if (pos >= 0) {
+                result[count++] = value;
+                low = pos + 1;
+            } else {
+                low = -pos - 1;
+            }
+            if (low >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
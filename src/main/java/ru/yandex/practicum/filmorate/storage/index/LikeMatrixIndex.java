@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Разреженная матрица лайков пользователь x фильм в двух проекциях: фильмы пользователя
+ * и пользователи фильма, обе - отсортированные массивы id.
+ * Рекомендации строятся по пользователям с наибольшим пересечением лайков: пересечение
+ * считается параллельно по частям списка фильмов пользователя в собственном ForkJoinPool
+ * с ограниченным числом потоков, чтобы не занимать общий пул приложения.
+ */
+@Component
+public class LikeMatrixIndex {
+    private static final int DEFAULT_MAX_NEIGHBOURS = 50;
+    private static final int DEFAULT_MAX_LIKERS_PER_FILM = 10_000;
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int FILMS_PER_TASK = 64;
+    private static final int LOCK_STRIPES = 64;
+    private static final Comparator<Score> BEST_FIRST = Comparator.comparingLong(Score::score)
+            .reversed()
+            .thenComparingLong(Score::id);
+
+    private final ConcurrentLongSetMap filmsByUser = new ConcurrentLongSetMap();
+    private final ConcurrentLongSetMap usersByFilm = new ConcurrentLongSetMap();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final int maxNeighbours;
+    private final int maxLikersPerFilm;
+    private final ForkJoinPool scoringPool;
+
+    public LikeMatrixIndex() {
+        this(DEFAULT_MAX_NEIGHBOURS, DEFAULT_MAX_LIKERS_PER_FILM, DEFAULT_PARALLELISM);
+    }
+
+    @Autowired
+    public LikeMatrixIndex(@Value("${filmorate.recommendations.max-neighbours:50}") int maxNeighbours,
+                           @Value("${filmorate.recommendations.max-likers-per-film:10000}") int maxLikersPerFilm,
+                           @Value("${filmorate.recommendations.parallelism:4}") int parallelism) {
+        this.maxNeighbours = maxNeighbours;
+        this.maxLikersPerFilm = maxLikersPerFilm;
+        this.scoringPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("recommendations-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Очищает матрицу и возвращает загрузчик, который принимает пары (фильм, пользователь),
+     * отсортированные по фильму, а затем по пользователю.
+     */
+    public Loader reload() {
+        filmsByUser.clear();
+        usersByFilm.clear();
+        return new Loader();
+    }
+
+    public boolean like(long filmId, long userId) {
+        synchronized (lockFor(filmId, userId)) {
+            if (!usersByFilm.add(filmId, userId)) {
+                return false;
+            }
+            filmsByUser.add(userId, filmId);
+            return true;
+        }
+    }
+
+    public boolean unlike(long filmId, long userId) {
+        synchronized (lockFor(filmId, userId)) {
+            if (!usersByFilm.remove(filmId, userId)) {
+                return false;
+            }
+            filmsByUser.remove(userId, filmId);
+            return true;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scoringPool.shutdownNow();
+    }
+
+    public long[] getLikedFilmIds(long userId) {
+        return filmsByUser.get(userId);
+    }
+
+    /**
+     * Фильмы, которые лайкнули похожие пользователи и ещё не лайкнул userId.
+     * Вес фильма - сумма пересечений лайков тех похожих пользователей, которым он понравился.
+     */
+    public List<Long> recommend(long userId, int count) {
+        long[] own = filmsByUser.get(userId);
+        if (own.length == 0 || count <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> overlaps = scoringPool.invoke(new OverlapTask(userId, own, 0, own.length));
+        List<Score> neighbours = top(overlaps, maxNeighbours);
+
+        Map<Long, Integer> filmScores = new HashMap<>();
+        for (Score neighbour : neighbours) {
+            for (long filmId : filmsByUser.get(neighbour.id())) {
+                if (Arrays.binarySearch(own, filmId) < 0) {
+                    filmScores.merge(filmId, (int) neighbour.score(), Integer::sum);
+                }
+            }
+        }
+        return top(filmScores, count).stream()
+                .map(Score::id)
+                .toList();
+    }
+
+    private static List<Score> top(Map<Long, Integer> scores, int count) {
+        PriorityQueue<Score> heap = new PriorityQueue<>(Math.min(count, scores.size()) + 1, BEST_FIRST.reversed());
+        scores.forEach((id, score) -> {
+            heap.offer(new Score(id, score));
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        });
+        List<Score> result = new ArrayList<>(heap);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    private Object lockFor(long filmId, long userId) {
+        return locks[(Long.hashCode(filmId) * 31 + Long.hashCode(userId)) & (LOCK_STRIPES - 1)];
+    }
+
+    private record Score(long id, long score) {
+    }
+
+    private final class OverlapTask extends RecursiveTask<Map<Long, Integer>> {
+        private final long userId;
+        private final long[] films;
+        private final int from;
+        private final int to;
+
+        private OverlapTask(long userId, long[] films, int from, int to) {
+            this.userId = userId;
+            this.films = films;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, Integer> compute() {
+            if (to - from <= FILMS_PER_TASK) {
+                Map<Long, Integer> overlaps = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    long[] likers = usersByFilm.get(films[i]);
+                    // У популярного фильма берётся равномерная выборка по всему списку, а не первые id:
+                    // иначе в соседи попадали бы только самые старые аккаунты
+                    int limit = Math.min(likers.length, maxLikersPerFilm);
+                    for (int k = 0; k < limit; k++) {
+                        long liker = likers[(int) ((long) k * likers.length / limit)];
+                        if (liker != userId) {
+                            overlaps.merge(liker, 1, Integer::sum);
+                        }
+                    }
+                }
+                return overlaps;
+            }
+            int middle = (from + to) >>> 1;
+            OverlapTask left = new OverlapTask(userId, films, from, middle);
+            left.fork();
+            Map<Long, Integer> right = new OverlapTask(userId, films, middle, to).compute();
+            Map<Long, Integer> merged = left.join();
+            right.forEach((id, overlap) -> merged.merge(id, overlap, Integer::sum));
+            return merged;
+        }
+    }
+
+    public final class Loader {
+        private final Map<Long, LongArray> userFilms = new HashMap<>();
+        private final LongArray filmUsers = new LongArray();
+        private long filmId = -1;
+        private int total;
+
+        private Loader() {
+        }
+
+        public void add(long filmId, long userId) {
+            if (filmId != this.filmId) {
+                flush();
+                this.filmId = filmId;
+            }
+            filmUsers.add(userId);
+            // Фильмы приходят по возрастанию, поэтому списки фильмов пользователей остаются отсортированными.
+            userFilms.computeIfAbsent(userId, id -> new LongArray()).add(filmId);
+            total++;
+        }
+
+        public int finish() {
+            flush();
+            userFilms.forEach((userId, films) -> filmsByUser.put(userId, films.toArray()));
+            return total;
+        }
+
+        private void flush() {
+            if (!filmUsers.isEmpty()) {
+                usersByFilm.put(filmId, filmUsers.toArray());
+                filmUsers.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.storage.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище фильмов без базы данных для нагрузочных стендов и edge-кэшей.
+ * Повторяет поведение FilmDbStorage: наружу отдаются копии без жанров,
+ * жанры фильма читаются через InMemoryGenreStorage.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryFilmStorage implements FilmStorage {
+    private static final int[] NO_GENRES = new int[0];
+
+    private final NavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final Map<Long, int[]> filmGenres = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final InMemoryMpaStorage mpaStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final LikeMatrixIndex likeMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final ChangeVersions versions;
+
+    public InMemoryFilmStorage(InMemoryMpaStorage mpaStorage,
+                               FilmPopularityIndex popularityIndex,
+                               LikeMatrixIndex likeMatrix,
+                               FilmSearchIndex searchIndex,
+                               ChangeVersions versions) {
+        this.mpaStorage = mpaStorage;
+        this.popularityIndex = popularityIndex;
+        this.likeMatrix = likeMatrix;
+        this.searchIndex = searchIndex;
+        this.versions = versions;
+    }
+
+    @Override
+    public void save(Film film) {
+        if (film.getId() == 0) {
+            long id = lastId.incrementAndGet();
+            film.setId(id);
+            films.put(id, copyOf(film));
+            popularityIndex.register(id);
+        } else if (films.replace(film.getId(), copyOf(film)) == null) {
+            throw new RuntimeException("Не удалось обновить данные");
+        }
+
+        saveGenres(film);
+        popularityIndex.categorize(film.getId(), film.getReleaseDate().getYear(), getGenreIds(film.getId()));
+        searchIndex.index(film.getId(), film.getName(), film.getDescription());
+        versions.filmChanged(film.getId());
+    }
+
+    @Override
+    public void saveAll(List<Film> films) {
+        films.forEach(this::save);
+    }
+
+    private void saveGenres(Film film) {
+        if (film.getGenres() == null || film.getGenres().isEmpty()) {
+            filmGenres.remove(film.getId());
+            return;
+        }
+        filmGenres.put(film.getId(), film.getGenres().stream()
+                .mapToInt(Genre::getId)
+                .toArray());
+    }
+
+    int[] getGenreIds(long filmId) {
+        return filmGenres.getOrDefault(filmId, NO_GENRES);
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return films.values().stream()
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public void forEachChunk(int chunkSize, Consumer<List<Film>> consumer) {
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        for (Film film : films.values()) {
+            chunk.add(copyOf(film));
+            if (chunk.size() == chunkSize) {
+                consumer.accept(new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public Optional<Film> findById(long id) {
+        return Optional.ofNullable(films.get(id)).map(this::copyOf);
+    }
+
+    @Override
+    public List<Film> getMostPopular(int count, int from, Integer genreId, Integer year) {
+        return getByIds(popularityIndex.getTopFilmIds(count, from, genreId, year));
+    }
+
+    @Override
+    public List<Film> getRecommendations(long userId, int count) {
+        return getByIds(likeMatrix.recommend(userId, count));
+    }
+
+    @Override
+    public List<Film> search(String query, int count, int from) {
+        return getByIds(searchIndex.search(query, count, from));
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public void addLike(Film film, long userId) {
+        if (likeMatrix.like(film.getId(), userId)) {
+            popularityIndex.increment(film.getId());
+            versions.likesChanged(film.getId());
+        }
+    }
+
+    @Override
+    public void removeLike(Film film, long userId) {
+        if (likeMatrix.unlike(film.getId(), userId)) {
+            popularityIndex.decrement(film.getId());
+            versions.likesChanged(film.getId());
+        }
+    }
+
+    @Override
+    public void applyLikeChanges(List<LikeChange> changes) {
+        for (LikeChange change : changes) {
+            if (change.liked()) {
+                if (likeMatrix.like(change.filmId(), change.userId())) {
+                    popularityIndex.increment(change.filmId());
+                    versions.likesChanged(change.filmId());
+                }
+            } else if (likeMatrix.unlike(change.filmId(), change.userId())) {
+                popularityIndex.decrement(change.filmId());
+                versions.likesChanged(change.filmId());
+            }
+        }
+    }
+
+    private Film copyOf(Film film) {
+        int mpaId = film.getMpa().getId();
+        Mpa mpa = mpaStorage.get(mpaId).orElseGet(() -> Mpa.builder().id(mpaId).build());
+        Film copy = Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(mpa)
+                .build();
+        copy.setGenres(null);
+        return copy;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.storage.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Repository("genreStorage")
+@Profile("inmemory")
+public class InMemoryGenreStorage implements GenreStorage {
+    private final Map<Integer, String> names = new TreeMap<>(Map.of(
+            1, "Комедия",
+            2, "Драма",
+            3, "Мультфильм",
+            4, "Триллер",
+            5, "Документальный",
+            6, "Боевик"
+    ));
+
+    private final InMemoryFilmStorage filmStorage;
+
+    public InMemoryGenreStorage(InMemoryFilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @Override
+    public List<Genre> getAll() {
+        return names.keySet().stream()
+                .map(this::toGenre)
+                .toList();
+    }
+
+    @Override
+    public Optional<Genre> get(int id) {
+        return Optional.ofNullable(toGenre(id));
+    }
+
+    @Override
+    public List<Genre> getByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return new LinkedHashSet<>(ids).stream()
+                .map(this::toGenre)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public Map<Long, List<Genre>> getGenresByFilmIds(List<Long> filmIds) {
+        Map<Long, List<Genre>> result = new HashMap<>();
+        if (filmIds == null) {
+            return result;
+        }
+        for (long filmId : filmIds) {
+            int[] genreIds = filmStorage.getGenreIds(filmId);
+            if (genreIds.length == 0) {
+                continue;
+            }
+            List<Genre> genres = new ArrayList<>(genreIds.length);
+            for (int genreId : genreIds) {
+                genres.add(toGenre(genreId));
+            }
+            result.put(filmId, genres);
+        }
+        return result;
+    }
+
+    private Genre toGenre(int id) {
+        String name = names.get(id);
+        return name == null ? null : Genre.builder().id(id).name(name).build();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.DictionaryStorage;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Repository("mpaStorage")
+@Profile("inmemory")
+public class InMemoryMpaStorage implements DictionaryStorage<Mpa> {
+    private final Map<Integer, String> names = new TreeMap<>(Map.of(
+            1, "G",
+            2, "PG",
+            3, "PG-13",
+            4, "R",
+            5, "NC-17"
+    ));
+
+    @Override
+    public List<Mpa> getAll() {
+        return names.keySet().stream()
+                .map(this::toMpa)
+                .toList();
+    }
+
+    @Override
+    public Optional<Mpa> get(int id) {
+        return Optional.ofNullable(toMpa(id));
+    }
+
+    @Override
+    public List<Mpa> getByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return new LinkedHashSet<>(ids).stream()
+                .map(this::toMpa)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Mpa toMpa(int id) {
+        String name = names.get(id);
+        return name == null ? null : Mpa.builder().id(id).name(name).build();
+    }
+}
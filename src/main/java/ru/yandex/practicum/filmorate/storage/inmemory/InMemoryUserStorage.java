@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.storage.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Хранилище пользователей без базы данных, повторяющее поведение UserDbStorage.
+ * Друзья хранятся отсортированными массивами id, поэтому страницы друзей
+ * отдаются бинарным поиском по курсору.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryUserStorage implements UserStorage {
+    private final NavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final FriendGraphIndex friendGraph;
+    private final ChangeVersions versions;
+
+    public InMemoryUserStorage(FriendGraphIndex friendGraph, ChangeVersions versions) {
+        this.friendGraph = friendGraph;
+        this.versions = versions;
+    }
+
+    @Override
+    public void save(User user) {
+        if (user.getId() == 0) {
+            long id = lastId.incrementAndGet();
+            user.setId(id);
+            users.put(id, copyOf(user));
+        } else if (users.replace(user.getId(), copyOf(user)) == null) {
+            throw new RuntimeException("Не удалось обновить данные");
+        }
+        versions.usersChanged();
+    }
+
+    @Override
+    public List<User> getAll() {
+        return users.values().stream()
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return Optional.ofNullable(users.get(id)).map(this::copyOf);
+    }
+
+    @Override
+    public List<User> getAllFriends(User user) {
+        return toUsers(friendGraph.getFriendIds(user.getId()), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getFriendsPage(long userId, long afterId, int limit) {
+        long[] friendIds = friendGraph.getFriendIds(userId);
+        int pos = Arrays.binarySearch(friendIds, afterId);
+        int from = pos >= 0 ? pos + 1 : -pos - 1;
+        return toUsers(friendIds, from, limit);
+    }
+
+    @Override
+    public List<User> getCommonFriends(long userId, long otherId) {
+        long[] commonIds = friendGraph.getCommonFriendIds(userId, otherId);
+        return toUsers(commonIds, 0, commonIds.length);
+    }
+
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(long userId, int count) {
+        return friendGraph.suggest(userId, count).stream()
+                .filter(candidate -> users.containsKey(candidate.userId()))
+                .map(candidate -> FriendSuggestion.builder()
+                        .user(copyOf(users.get(candidate.userId())))
+                        .mutualFriends(candidate.mutualFriends())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public List<User> getListOfUsers(List<Long> list) {
+        if (list == null || list.isEmpty()) {
+            return List.of();
+        }
+
+        List<User> foundUsers = getByIds(list);
+
+        if (foundUsers.size() != new LinkedHashSet<>(list).size()) {
+            throw new NotFoundException("Часть запрашиваемых пользователей не надены");
+        }
+
+        return foundUsers;
+    }
+
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        List<User> foundUsers = new ArrayList<>(uniqueIds.size());
+        for (long id : uniqueIds) {
+            User user = users.get(id);
+            if (user != null) {
+                foundUsers.add(copyOf(user));
+            }
+        }
+        return foundUsers;
+    }
+
+    @Override
+    public void addFriendship(long userId, long friendId) {
+        if (!friendGraph.addFriend(userId, friendId)) {
+            throw new ValidationException("Пользователи уже друзья");
+        }
+        versions.usersChanged();
+    }
+
+    @Override
+    public void removeFriendship(long userId, long friendId) {
+        if (friendGraph.removeFriend(userId, friendId)) {
+            versions.usersChanged();
+        }
+    }
+
+    @Override
+    public Map<Long, User> getUsersMapByIds(List<Long> ids) {
+        return getListOfUsers(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private List<User> toUsers(long[] ids, int from, int limit) {
+        List<User> result = new ArrayList<>();
+        for (int i = from; i < ids.length && result.size() < limit; i++) {
+            User user = users.get(ids[i]);
+            if (user != null) {
+                result.add(copyOf(user));
+            }
+        }
+        return result;
+    }
+
+    private User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .login(user.getLogin())
+                .name(user.getName())
+                .birthday(user.getBirthday())
+                .build();
+    }
+}
@@ -1,12 +1,3 @@
-DROP TABLE IF EXISTS USERS CASCADE;
-DROP TABLE IF EXISTS FILMS CASCADE;
-DROP TABLE IF EXISTS FRIENDS CASCADE;
-DROP TABLE IF EXISTS LIKES CASCADE;
-DROP TABLE IF EXISTS MPA CASCADE;
-DROP TABLE IF EXISTS GENRES CASCADE;
-DROP TABLE IF EXISTS FILM_GENRES CASCADE;
-
-
 CREATE TABLE IF NOT EXISTS mpa (
     id      INTEGER PRIMARY KEY,
     name    VARCHAR(20) NOT NULL
@@ -40,7 +31,6 @@ CREATE TABLE IF NOT EXISTS friends (
     PRIMARY KEY (user_id, friend_id)
 );
 
-
 CREATE TABLE IF NOT EXISTS likes (
     film_id     BIGINT NOT NULL REFERENCES films(id) ON DELETE CASCADE,
     user_id     BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
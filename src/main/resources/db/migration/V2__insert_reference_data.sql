@@ -1,14 +1,14 @@
-INSERT INTO mpa (id, name) VALUES
+MERGE INTO mpa (id, name) KEY (id) VALUES
 (1, 'G'),
 (2, 'PG'),
 (3, 'PG-13'),
 (4, 'R'),
 (5, 'NC-17');
 
-INSERT INTO genres (id, name) VALUES
+MERGE INTO genres (id, name) KEY (id) VALUES
 (1, 'Комедия'),
 (2, 'Драма'),
 (3, 'Мультфильм'),
 (4, 'Триллер'),
 (5, 'Документальный'),
-(6, 'Боевик');
\ No newline at end of file
+(6, 'Боевик');
@@ -0,0 +1,7 @@
+-- Первичные ключи покрывают поиск по первому столбцу; обратные выборки
+-- («кто добавил в друзья», «что лайкнул пользователь», «фильмы жанра») шли полным сканом.
+CREATE INDEX IF NOT EXISTS friends_friend_id_idx ON friends (friend_id);
+
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+
+CREATE INDEX IF NOT EXISTS film_genres_genre_id_idx ON film_genres (genre_id);
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("inmemory")
+class InMemoryProfileTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void shouldStartWithoutDatabase() {
+		assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+		assertThat(context.getBeanNamesForType(Flyway.class)).isEmpty();
+		assertThat(context.getBeanNamesForType(EntityManagerFactory.class)).isEmpty();
+	}
+
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadDataSourceTest {
+
+    private BulkheadDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource target = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource = new BulkheadDataSource(target, 1, Duration.ofMillis(100));
+    }
+
+    @Test
+    void shouldReleasePermitOnceWhenConnectionClosed() throws Exception {
+        Connection connection = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+
+        connection.close();
+        connection.close();
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailWhenNoPermitWithinTimeout() throws Exception {
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThrows(ServiceUnavailableException.class, () -> dataSource.getConnection());
+        }
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHandOverPermitToWaitingVirtualThread() throws Exception {
+        BulkheadDataSource slowDataSource = new BulkheadDataSource(new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1", "sa", ""), 1, Duration.ofSeconds(5));
+        Connection first = slowDataSource.getConnection();
+
+        CompletableFuture<Boolean> waiting = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try (Connection second = slowDataSource.getConnection()) {
+                waiting.complete(second.isValid(1));
+            } catch (Exception e) {
+                waiting.completeExceptionally(e);
+            }
+        });
+        first.close();
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
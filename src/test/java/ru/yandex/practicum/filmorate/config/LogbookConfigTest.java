@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogbookConfigTest {
+
+    private final Predicate<HttpRequest> condition = new LogbookConfig().requestCondition();
+
+    @Test
+    void shouldSkipCatalogStream() {
+        assertThat(condition.test(request("GET", "/films", "stream=true"))).isFalse();
+        assertThat(condition.test(request("GET", "/films", "a=1&stream=true"))).isFalse();
+    }
+
+    @Test
+    void shouldKeepOrdinaryRequests() {
+        assertThat(condition.test(request("GET", "/films", ""))).isTrue();
+        assertThat(condition.test(request("GET", "/films", "stream=false"))).isTrue();
+        assertThat(condition.test(request("POST", "/films", "stream=true"))).isTrue();
+        assertThat(condition.test(request("GET", "/films/1", "stream=true"))).isTrue();
+    }
+
+    private static HttpRequest request(String method, String path, String query) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getPath()).thenReturn(path);
+        when(request.getQuery()).thenReturn(query);
+        return request;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SampledHttpLogSinkTest {
+
+    private final HttpLogFormatter formatter = mock(HttpLogFormatter.class);
+    private final HttpLogWriter writer = mock(HttpLogWriter.class);
+    private SampledHttpLogSink sink;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        sink.close();
+    }
+
+    @Test
+    void shouldWriteSampledExchangeInBackground() throws Exception {
+        sink = new SampledHttpLogSink(formatter, writer, 16);
+        Correlation correlation = correlation();
+        HttpRequest request = mock(HttpRequest.class);
+        HttpResponse response = response(200);
+        when(formatter.format((Precorrelation) correlation, request)).thenReturn("request");
+        when(formatter.format(correlation, response)).thenReturn("response");
+
+        sink.write(correlation, request, response);
+
+        verify(writer, timeout(1000)).write((Precorrelation) correlation, "request");
+        verify(writer, timeout(1000)).write(correlation, "response");
+    }
+
+    @Test
+    void shouldDropInsteadOfBlockingWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(writer).write(any(Precorrelation.class), anyString());
+        when(formatter.format(any(Precorrelation.class), any(HttpRequest.class))).thenReturn("request");
+        sink = new SampledHttpLogSink(formatter, writer, 1);
+
+        sink.write(correlation(), mock(HttpRequest.class), response(200));
+        assertThat(writing.await(1, TimeUnit.SECONDS)).isTrue();
+        sink.write(correlation(), mock(HttpRequest.class), response(200));
+        long start = System.nanoTime();
+        sink.write(correlation(), mock(HttpRequest.class), response(200));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+        assertThat(sink.getPending()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private static Correlation correlation() {
+        Correlation correlation = mock(Correlation.class);
+        when(correlation.getDuration()).thenReturn(Duration.ofMillis(1));
+        when(correlation.getId()).thenReturn("id");
+        return correlation;
+    }
+
+    private static HttpResponse response(int status) {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Sink;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SampledHttpLogStrategyTest {
+
+    private final Sink sink = mock(Sink.class);
+
+    @Test
+    void shouldAlwaysKeepErrorsAndSlowRequests() {
+        SampledHttpLogStrategy strategy = new SampledHttpLogStrategy(0.0, Duration.ofMillis(500));
+
+        assertThat(strategy.isNotable(200, Duration.ofMillis(10))).isFalse();
+        assertThat(strategy.isNotable(404, Duration.ofMillis(10))).isTrue();
+        assertThat(strategy.isNotable(500, Duration.ofMillis(10))).isTrue();
+        assertThat(strategy.isNotable(200, Duration.ofMillis(500))).isTrue();
+    }
+
+    @Test
+    void shouldNotBufferBodiesOfUnsampledExchange() throws Exception {
+        SampledHttpLogStrategy strategy = new SampledHttpLogStrategy(0.0, Duration.ofSeconds(1));
+        HttpRequest request = request();
+        HttpResponse response = response(200);
+
+        strategy.process(request);
+        strategy.process(request, response);
+        strategy.write(correlation(), request, response, sink);
+
+        verify(request).withoutBody();
+        verify(request, never()).withBody();
+        verify(response).withoutBody();
+        verify(response, never()).withBody();
+        verify(sink, never()).writeBoth(any(), any(), any());
+    }
+
+    @Test
+    void shouldBufferAndWriteSampledExchange() throws Exception {
+        SampledHttpLogStrategy strategy = new SampledHttpLogStrategy(1.0, Duration.ofSeconds(1));
+        HttpRequest request = request();
+        HttpResponse response = response(200);
+        Correlation correlation = correlation();
+
+        strategy.process(request);
+        strategy.process(request, response);
+        strategy.write(correlation, request, response, sink);
+
+        verify(request).withBody();
+        verify(response).withBody();
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    @Test
+    void shouldWriteUnsampledErrorWithoutBodies() throws Exception {
+        SampledHttpLogStrategy strategy = new SampledHttpLogStrategy(0.0, Duration.ofSeconds(1));
+        HttpRequest request = request();
+        HttpResponse response = response(500);
+        Correlation correlation = correlation();
+
+        strategy.process(request);
+        strategy.process(request, response);
+        strategy.write(correlation, request, response, sink);
+
+        verify(response).withoutBody();
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    private static HttpRequest request() throws Exception {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.withBody()).thenReturn(request);
+        when(request.withoutBody()).thenReturn(request);
+        return request;
+    }
+
+    private static HttpResponse response(int status) throws Exception {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.withBody()).thenReturn(response);
+        when(response.withoutBody()).thenReturn(response);
+        return response;
+    }
+
+    private static Correlation correlation() {
+        Correlation correlation = mock(Correlation.class);
+        when(correlation.getDuration()).thenReturn(Duration.ofMillis(1));
+        return correlation;
+    }
+}
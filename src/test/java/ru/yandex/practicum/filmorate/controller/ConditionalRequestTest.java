@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChangeVersions versions;
+
+    @Test
+    void shouldRejectInvalidPopularRequestEvenWithCurrentTag() throws Exception {
+        String tag = versions.tag(ChangeVersions.Aggregate.FILMS, ChangeVersions.Aggregate.LIKES,
+                ChangeVersions.Aggregate.GENRES, ChangeVersions.Aggregate.MPA);
+
+        mockMvc.perform(get("/films/popular").param("count", "0").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUsersUntilTheyChange() throws Exception {
+        String tag = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified());
+
+        versions.usersChanged();
+
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+}
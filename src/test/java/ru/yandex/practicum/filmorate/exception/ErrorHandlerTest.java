@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "filmorate.db.bulkhead.max-concurrent=2",
+        "filmorate.db.bulkhead.acquire-timeout=PT0.05S"
+})
+@AutoConfigureMockMvc
+class ErrorHandlerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldAnswer503WhenTransactionCannotGetConnection() throws Exception {
+        String film = """
+                {"name": "Film", "description": "Description", "releaseDate": "2000-01-01",
+                 "duration": 90, "mpa": {"id": 1}}
+                """;
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            // Создание фильма открывает транзакцию в FilmDbStorage.save, а все разрешения bulkhead заняты
+            mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(film))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.description").value("Все соединения с базой заняты"));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.BulkFilmResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.storage.db.*;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.*;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class FilmImportServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private FilmImportService importService;
+    private FilmService filmService;
+
+    @BeforeEach
+    void setUp() {
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper(), new FriendGraphIndex(),
+                new ChangeVersions());
+        MpaDbStorage mpaStorage = new MpaDbStorage(jdbcTemplate, new MpaRowMapper());
+        GenreDbStorage genreStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper());
+
+        ValidationService validationService = new ValidationService(userStorage, filmStorage, mpaStorage, genreStorage);
+        LikeWriteBehindBuffer likeBuffer = new LikeWriteBehindBuffer(filmStorage, false, 100, 10,
+                Duration.ofMillis(10), Duration.ofMillis(10), 1, Duration.ofMillis(10));
+        filmService = new FilmService(filmStorage, validationService, genreStorage, likeBuffer);
+        importService = new FilmImportService(filmStorage, filmService, new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    @Test
+    @DisplayName("Пакетная загрузка: корректные строки сохраняются, ошибочные попадают в отчёт в порядке строк")
+    void shouldImportValidLinesAndReportInvalidOnes() throws IOException {
+        String ndjson = String.join("\n",
+                film("first", 1, "[{\"id\": 1}, {\"id\": 2}]"),
+                "{not json",
+                film("second", 1, "[]"),
+                "",
+                film("", 1, "[]"),
+                film("third", 99, "[]"),
+                film("fourth", 2, "[{\"id\": 42}]"),
+                film("fifth", 3, "[{\"id\": 6}]"));
+
+        List<BulkFilmResult> results = new ArrayList<>();
+        importService.importFilms(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), results::add);
+
+        assertThat(results).extracting(BulkFilmResult::getLine).containsExactly(1, 2, 3, 5, 6, 7, 8);
+        assertThat(results).extracting(BulkFilmResult::getStatus).containsExactly(
+                BulkFilmResult.Status.CREATED,
+                BulkFilmResult.Status.FAILED,
+                BulkFilmResult.Status.CREATED,
+                BulkFilmResult.Status.FAILED,
+                BulkFilmResult.Status.FAILED,
+                BulkFilmResult.Status.FAILED,
+                BulkFilmResult.Status.CREATED);
+
+        List<Film> films = filmService.getFilms();
+        assertThat(films).extracting(Film::getName).containsExactlyInAnyOrder("first", "second", "fifth");
+        Film first = filmService.getFilm(results.get(0).getId());
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactlyInAnyOrder(1, 2);
+    }
+
+    private String film(String name, int mpaId, String genres) {
+        return "{\"name\": \"" + name + "\", \"description\": \"description\", \"releaseDate\": \"2000-01-01\", " +
+                "\"duration\": 100, \"mpa\": {\"id\": " + mpaId + "}, \"genres\": " + genres + "}";
+    }
+}
@@ -7,18 +7,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.LikeWriteBehindBuffer;
 import ru.yandex.practicum.filmorate.storage.db.*;
 import ru.yandex.practicum.filmorate.storage.db.rowmapper.*;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,15 +37,14 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Sql(scripts = {"/schema.sql", "/data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+// Индексы обновляются после коммита, поэтому тесты идут без общей откатываемой транзакции
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
 class FilmServiceTest {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    @Autowired
-    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-
     private FilmService filmService;
     private ValidationService validationService;
     private FilmDbStorage filmStorage;
@@ -48,13 +58,17 @@ class FilmServiceTest {
 
     @BeforeEach
     void setUp() {
-        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper());
-        userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper());
+        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper(), new FriendGraphIndex(),
+                new ChangeVersions());
         mpaStorage = new MpaDbStorage(jdbcTemplate, new MpaRowMapper());
-        genreStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper(), namedParameterJdbcTemplate);
+        genreStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper());
 
         validationService = new ValidationService(userStorage, filmStorage, mpaStorage, genreStorage);
-        filmService = new FilmService(filmStorage, validationService, genreStorage);
+        LikeWriteBehindBuffer likeBuffer = new LikeWriteBehindBuffer(filmStorage, false, 100, 10,
+                Duration.ofMillis(10), Duration.ofMillis(10), 1, Duration.ofMillis(10));
+        filmService = new FilmService(filmStorage, validationService, genreStorage, likeBuffer);
 
         testUser = User.builder()
                 .email("test@mail.ru")
@@ -99,6 +113,72 @@ class FilmServiceTest {
                 });
     }
 
+    @Test
+    @DisplayName("Постраничное получение фильмов: курсор ведёт на следующую страницу")
+    void shouldReturnFilmsPageByPage() {
+        for (int i = 1; i <= 3; i++) {
+            filmService.create(Film.builder()
+                    .name("name" + i)
+                    .description("description")
+                    .duration(100)
+                    .releaseDate(LocalDate.of(2000, 1, i))
+                    .mpa(testMpa)
+                    .genres(List.of(Genre.builder().id(i).build()))
+                    .build());
+        }
+
+        Page<Film> first = filmService.getFilmsPage(null, 2);
+        assertThat(first.getItems()).extracting(Film::getName).containsExactly("name1", "name2");
+        assertThat(first.getItems().get(1).getGenres()).extracting(Genre::getId).containsExactly(2);
+        assertThat(first.getNextCursor()).isNotBlank();
+
+        Page<Film> second = filmService.getFilmsPage(first.getNextCursor(), 2);
+        assertThat(second.getItems()).extracting(Film::getName).containsExactly("name3");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Получение фильмов по списку id: найденные с жанрами и список отсутствующих")
+    void shouldReturnFoundFilmsAndMissingIds() {
+        correctFilm.setGenres(List.of(Genre.builder().id(3).build()));
+        filmService.create(correctFilm);
+
+        MultiGetResult<Film> result = filmService.getFilmsByIds(List.of(999L, correctFilm.getId(), 999L));
+
+        assertThat(result.getItems()).extracting(Film::getId).containsExactly(correctFilm.getId());
+        assertThat(result.getItems().get(0).getGenres()).extracting(Genre::getId).containsExactly(3);
+        assertThat(result.getMissingIds()).containsExactly(999L);
+        assertThrows(ValidationException.class, () -> filmService.getFilmsByIds(List.of()));
+    }
+
+    @Test
+    @DisplayName("Потоковое получение фильмов: все фильмы с жанрами")
+    void shouldStreamAllFilmsWithGenres() {
+        correctFilm.setGenres(List.of(Genre.builder().id(3).build()));
+        filmService.create(correctFilm);
+        filmService.create(Film.builder()
+                .name("second")
+                .description("description")
+                .duration(90)
+                .releaseDate(LocalDate.of(2001, 1, 1))
+                .mpa(testMpa)
+                .build());
+
+        List<Film> streamed = new ArrayList<>();
+        filmService.streamFilms(streamed::add);
+
+        assertThat(streamed).extracting(Film::getName).containsExactly("name", "second");
+        assertThat(streamed.get(0).getGenres()).extracting(Genre::getId).containsExactly(3);
+        assertThat(streamed.get(1).getGenres()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Постраничное получение фильмов: некорректные параметры -> исключение")
+    void shouldRejectInvalidPageRequest() {
+        assertThrows(ValidationException.class, () -> filmService.getFilmsPage(null, 0));
+        assertThrows(ValidationException.class, () -> filmService.getFilmsPage("not-a-cursor", 10));
+    }
+
     @Test
     @DisplayName("Создание фильма: с жанрами")
     void shouldSaveFilmWithGenres() {
@@ -311,4 +391,25 @@ class FilmServiceTest {
         List<Film> popularFilms = filmService.getMostPopularFilms(3);
         assertThat(popularFilms).hasSize(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Получение популярных фильмов: слишком большое количество или позиция")
+    void shouldRejectTooLargePopularWindow() {
+        assertThrows(ValidationException.class, () -> filmService.getMostPopularFilms(Integer.MAX_VALUE, 0));
+        assertThrows(ValidationException.class, () -> filmService.getMostPopularFilms(10, Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Поиск: слишком большое количество или позиция -> исключение")
+    void shouldRejectTooLargeSearchWindow() {
+        assertThrows(ValidationException.class, () -> filmService.searchFilms("film", Integer.MAX_VALUE, 0));
+        assertThrows(ValidationException.class, () -> filmService.searchFilms("film", 10, Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Рекомендации: слишком большое количество -> исключение")
+    void shouldRejectTooManyRecommendations() {
+        assertThrows(ValidationException.class,
+                () -> filmService.getRecommendations(testUser.getId(), Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.PopularityChange;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PopularityFeedTest {
+
+    private FilmPopularityIndex popularityIndex;
+    private ChangeVersions versions;
+    private PopularityFeed feed;
+    private SimpleMeterRegistry registry;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicBoolean stallNextWrite = new AtomicBoolean();
+    private final BlockingQueue<SseEmitter> delivered = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        popularityIndex = new FilmPopularityIndex();
+        popularityIndex.rebuild(Map.of(1L, 3L, 2L, 2L, 3L, 1L));
+        versions = new ChangeVersions();
+        feed = new PopularityFeed(popularityIndex, versions, new ObjectMapper(), 10, 4,
+                Duration.ofMinutes(1), Duration.ofMillis(50), 1) {
+            @Override
+            void write(SseEmitter emitter, SseEmitter.SseEventBuilder event) throws IOException {
+                if (stallNextWrite.compareAndSet(true, false)) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                delivered.add(emitter);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        feed.close();
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void shouldReportOnlyChangedPositions() {
+        List<PopularityChange> previous = List.of(
+                new PopularityChange(1, 1, 3),
+                new PopularityChange(2, 2, 2),
+                new PopularityChange(3, 3, 1));
+        List<PopularityChange> current = List.of(
+                new PopularityChange(1, 1, 4),
+                new PopularityChange(3, 2, 3),
+                new PopularityChange(2, 3, 2));
+
+        List<PopularityChange> changes = PopularityFeed.diff(previous, current, 3, filmId -> 0);
+
+        assertThat(changes).containsExactly(
+                new PopularityChange(1, 1, 4),
+                new PopularityChange(3, 2, 3),
+                new PopularityChange(2, 3, 2));
+    }
+
+    @Test
+    void shouldReportFilmsLeavingAndEnteringTop() {
+        List<PopularityChange> previous = List.of(
+                new PopularityChange(1, 1, 3),
+                new PopularityChange(2, 2, 2),
+                new PopularityChange(3, 3, 1));
+        List<PopularityChange> current = List.of(
+                new PopularityChange(1, 1, 3),
+                new PopularityChange(3, 2, 5),
+                new PopularityChange(2, 3, 2));
+
+        List<PopularityChange> changes = PopularityFeed.diff(previous, current, 2, filmId -> 2);
+
+        assertThat(changes).containsExactly(
+                new PopularityChange(3, 2, 5),
+                new PopularityChange(2, null, 2));
+    }
+
+    @Test
+    void shouldReturnNoChangesForSameTop() {
+        List<PopularityChange> top = List.of(new PopularityChange(1, 1, 3), new PopularityChange(2, 2, 2));
+
+        assertThat(PopularityFeed.diff(top, top, 10, filmId -> 0)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectTopSizeOutOfRange() {
+        assertThrows(ValidationException.class, () -> feed.subscribe(0));
+        assertThrows(ValidationException.class, () -> feed.subscribe(11));
+        assertThat(feed.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepSubscribersAcrossPublishes() {
+        feed.subscribe(2);
+        feed.subscribe(5);
+
+        popularityIndex.increment(3L);
+        versions.likesChanged(3L);
+        feed.publish();
+        feed.publish();
+
+        assertThat(feed.getSubscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldDropSubscriberWhenQueueOverflows() {
+        stallNextWrite.set(true);
+        feed.subscribe(10);
+
+        for (int i = 0; i < 5; i++) {
+            popularityIndex.increment(3L);
+            versions.likesChanged(3L);
+            feed.publish();
+        }
+
+        assertThat(feed.getSubscriberCount()).isZero();
+        assertThat(registry.counter(PopularityFeed.DROPPED_COUNTER_NAME).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropStalledSubscriberAndKeepServingOthers() throws InterruptedException {
+        stallNextWrite.set(true);
+        feed.subscribe(10);
+        SseEmitter healthy = feed.subscribe(10);
+
+        Thread.sleep(100);
+        feed.publish();
+
+        assertThat(delivered.poll(5, TimeUnit.SECONDS)).isSameAs(healthy);
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+        assertThat(registry.counter(PopularityFeed.DROPPED_COUNTER_NAME).count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveFilmServiceTest {
+
+    private final FilmService filmService = mock(FilmService.class);
+    private final ReactiveFilmService reactiveService = new ReactiveFilmService(filmService);
+
+    @Test
+    void shouldReadNextPageOnlyOnDemand() {
+        when(filmService.getFilmsPage(null, ReactiveFilmService.PAGE_SIZE))
+                .thenReturn(page(1, ReactiveFilmService.PAGE_SIZE, "next"));
+        when(filmService.getFilmsPage("next", ReactiveFilmService.PAGE_SIZE))
+                .thenReturn(page(ReactiveFilmService.PAGE_SIZE + 1, 5, null));
+
+        List<Film> first = reactiveService.getFilms().take(3, true).collectList().block();
+
+        assertThat(first).extracting(Film::getId).containsExactly(1L, 2L, 3L);
+        verify(filmService, never()).getFilmsPage("next", ReactiveFilmService.PAGE_SIZE);
+
+        List<Film> all = reactiveService.getFilms().collectList().block();
+
+        assertThat(all).hasSize(ReactiveFilmService.PAGE_SIZE + 5);
+        assertThat(all).extracting(Film::getId).isSorted();
+    }
+
+    @Test
+    void shouldQueryDatabaseOffRequestThread() {
+        String[] thread = new String[1];
+        when(filmService.getFilm(1)).thenAnswer(invocation -> {
+            thread[0] = Thread.currentThread().getName();
+            return Film.builder().id(1).build();
+        });
+
+        Film film = reactiveService.getFilm(1).block();
+
+        assertThat(film.getId()).isEqualTo(1);
+        // С виртуальными потоками Reactor называет потоки пула loomBoundedElastic
+        assertThat(thread[0]).containsIgnoringCase("boundedElastic");
+    }
+
+    @Test
+    void shouldReportValidationErrorsThroughPublisher() {
+        when(filmService.getMostPopularFilms(anyInt(), anyInt(), any(), any()))
+                .thenThrow(new ValidationException("Количество фильмов должно быть от 1 до 1000"));
+
+        Flux<Film> popular = reactiveService.getMostPopularFilms(Integer.MAX_VALUE, 0, null, null);
+
+        assertThatThrownBy(popular::blockLast).isInstanceOf(ValidationException.class);
+    }
+
+    private static Page<Film> page(long firstId, int size, String nextCursor) {
+        return Page.<Film>builder()
+                .items(LongStream.range(firstId, firstId + size)
+                        .mapToObj(id -> Film.builder().id(id).build())
+                        .toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
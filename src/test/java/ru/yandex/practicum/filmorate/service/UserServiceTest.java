@@ -7,13 +7,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
 import ru.yandex.practicum.filmorate.storage.db.*;
 import ru.yandex.practicum.filmorate.storage.db.rowmapper.*;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -23,15 +30,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Sql(scripts = {"/schema.sql", "/data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class UserServiceTest {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    @Autowired
-    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-
     private UserService userService;
     private ValidationService validationService;
     private UserDbStorage userStorage;
@@ -44,10 +48,12 @@ class UserServiceTest {
     @BeforeEach
     void setUp() {
         // Инициализация хранилищ
-        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper());
-        userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper());
+        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper(), new FriendGraphIndex(),
+                new ChangeVersions());
         mpaStorage = new MpaDbStorage(jdbcTemplate, new MpaRowMapper());
-        genreStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper(), namedParameterJdbcTemplate);
+        genreStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper());
 
         validationService = new ValidationService(userStorage, filmStorage, mpaStorage, genreStorage);
         userService = new UserService(userStorage, validationService);
@@ -84,6 +90,33 @@ class UserServiceTest {
                 });
     }
 
+    @Test
+    @DisplayName("Постраничное получение пользователей и друзей")
+    void shouldReturnUsersAndFriendsPageByPage() {
+        User user = userService.create(correctUser);
+        for (int i = 1; i <= 3; i++) {
+            User friend = userService.create(User.builder()
+                    .email("friend" + i + "@mail.ru")
+                    .login("friend" + i)
+                    .name("Friend" + i)
+                    .birthday(LocalDate.of(1995, 5, i))
+                    .build());
+            userService.addFriend(user.getId(), friend.getId());
+        }
+
+        Page<User> users = userService.getUsersPage(null, 3);
+        assertThat(users.getItems()).hasSize(3);
+        Page<User> lastUsers = userService.getUsersPage(users.getNextCursor(), 3);
+        assertThat(lastUsers.getItems()).hasSize(1);
+        assertThat(lastUsers.getNextCursor()).isNull();
+
+        Page<User> friends = userService.getUsersFriendsPage(user.getId(), null, 2);
+        assertThat(friends.getItems()).extracting(User::getLogin).containsExactly("friend1", "friend2");
+        Page<User> lastFriends = userService.getUsersFriendsPage(user.getId(), friends.getNextCursor(), 2);
+        assertThat(lastFriends.getItems()).extracting(User::getLogin).containsExactly("friend3");
+        assertThat(lastFriends.getNextCursor()).isNull();
+    }
+
     @Test
     @DisplayName("Установка имени: если name пустой или null, используется login")
     void shouldSetNameFromLoginWhenNameIsBlank() {
@@ -318,6 +351,47 @@ class UserServiceTest {
                 () -> userService.getAllUsersCommonFriends(user.getId(), user.getId()));
     }
 
+    @Test
+    @DisplayName("Рекомендации друзей: друзья друзей по числу общих друзей, без уже добавленных")
+    void shouldSuggestFriendsOfFriends() {
+        User user = userService.create(correctUser);
+        User friend1 = userService.create(User.builder()
+                .email("friend1@mail.ru")
+                .login("friend1")
+                .birthday(LocalDate.of(1993, 3, 3))
+                .build());
+        User friend2 = userService.create(User.builder()
+                .email("friend2@mail.ru")
+                .login("friend2")
+                .birthday(LocalDate.of(1994, 4, 4))
+                .build());
+        User popular = userService.create(User.builder()
+                .email("popular@mail.ru")
+                .login("popular")
+                .birthday(LocalDate.of(1995, 5, 5))
+                .build());
+        User other = userService.create(User.builder()
+                .email("other@mail.ru")
+                .login("other")
+                .birthday(LocalDate.of(1996, 6, 6))
+                .build());
+
+        userService.addFriend(user.getId(), friend1.getId());
+        userService.addFriend(user.getId(), friend2.getId());
+        userService.addFriend(friend1.getId(), popular.getId());
+        userService.addFriend(friend2.getId(), popular.getId());
+        userService.addFriend(friend2.getId(), other.getId());
+        userService.addFriend(friend1.getId(), friend2.getId());
+
+        List<FriendSuggestion> suggestions = userService.getFriendSuggestions(user.getId(), 10);
+
+        assertThat(suggestions)
+                .extracting(suggestion -> suggestion.getUser().getId())
+                .containsExactly(popular.getId(), other.getId());
+        assertThat(suggestions.get(0).getMutualFriends()).isEqualTo(2);
+        assertThat(userService.getFriendSuggestions(user.getId(), 1)).hasSize(1);
+    }
+
     @Test
     @DisplayName("Получение пользователя по ID: успешное получение")
     void shouldGetUserByIdSuccessfully() {
@@ -329,10 +403,30 @@ class UserServiceTest {
         assertThat(found.getEmail()).isEqualTo(created.getEmail());
     }
 
+    @Test
+    @DisplayName("Получение пользователей по списку id: частичный результат вместо исключения")
+    void shouldReturnFoundUsersAndMissingIds() {
+        User created = userService.create(correctUser);
+
+        MultiGetResult<User> result = userService.getUsersByIds(List.of(created.getId(), 999L));
+
+        assertThat(result.getItems()).extracting(User::getId).containsExactly(created.getId());
+        assertThat(result.getMissingIds()).containsExactly(999L);
+    }
+
     @Test
     @DisplayName("Получение пользователя по ID: несуществующий ID -> исключение")
     void shouldThrowExceptionWhenGettingNonExistingUser() {
         assertThrows(NotFoundException.class,
                 () -> userService.getUser(999L));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Рекомендации друзей: слишком большое количество -> исключение")
+    void shouldRejectTooManyFriendSuggestions() {
+        User user = userService.create(correctUser);
+
+        assertThrows(ValidationException.class,
+                () -> userService.getFriendSuggestions(user.getId(), Integer.MAX_VALUE));
+    }
+}
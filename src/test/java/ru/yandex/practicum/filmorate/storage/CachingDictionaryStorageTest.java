@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.db.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.GenreRowMapper;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class CachingDictionaryStorageTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CachingDictionaryStorage<Genre> genreStorage;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        // Счётчики кэша из контекстов других тестов смотрят на их экземпляры, а не на этот
+        Metrics.globalRegistry.getMeters().stream()
+                .filter(meter -> meter.getId().getName().startsWith("filmorate.dictionary.cache"))
+                .forEach(Metrics.globalRegistry::remove);
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        GenreDbStorage genreDbStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper());
+        genreStorage = new CachingDictionaryStorage<>("genres", genreDbStorage, Genre::getId);
+        genreStorage.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void shouldServeGenresFromMemory() {
+        jdbcTemplate.update("DELETE FROM genres WHERE id = 1");
+
+        Optional<Genre> genre = genreStorage.get(1);
+
+        assertThat(genre).isPresent();
+        assertThat(genre.get().getName()).isEqualTo("Комедия");
+        assertThat(genreStorage.getAll()).hasSize(6);
+        assertThat(genreStorage.getByIds(List.of(2, 1))).extracting(Genre::getId).containsExactly(2, 1);
+        assertThat(count(CachingDictionaryStorage.HITS_COUNTER_NAME)).isEqualTo(3);
+        assertThat(count(CachingDictionaryStorage.MISSES_COUNTER_NAME)).isZero();
+    }
+
+    @Test
+    void shouldCountMissesForUnknownIds() {
+        assertThat(genreStorage.get(999)).isEmpty();
+        assertThat(genreStorage.getByIds(List.of(1, 999))).extracting(Genre::getId).containsExactly(1);
+
+        assertThat(count(CachingDictionaryStorage.MISSES_COUNTER_NAME)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPickUpNewRowsAfterRefresh() {
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (7, 'Ужасы')");
+        jdbcTemplate.update("UPDATE genres SET name = 'Комедии' WHERE id = 1");
+
+        assertThat(genreStorage.get(1).orElseThrow().getName()).isEqualTo("Комедия");
+
+        genreStorage.refresh();
+
+        assertThat(genreStorage.get(1).orElseThrow().getName()).isEqualTo("Комедии");
+        assertThat(genreStorage.getAll()).hasSize(7);
+    }
+
+    @Test
+    void shouldReloadWhenMissedRowExistsInDatabase() {
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (7, 'Ужасы')");
+
+        assertThat(genreStorage.get(7)).isPresent();
+        assertThat(count(CachingDictionaryStorage.MISSES_COUNTER_NAME)).isEqualTo(1);
+
+        assertThat(genreStorage.get(7)).isPresent();
+        assertThat(count(CachingDictionaryStorage.MISSES_COUNTER_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBumpVersionOnlyWhenReloadedContentDiffers() {
+        ChangeVersions versions = new ChangeVersions();
+        GenreDbStorage genreDbStorage = new GenreDbStorage(jdbcTemplate, new GenreRowMapper());
+        genreStorage = new CachingDictionaryStorage<>("genres", genreDbStorage, Genre::getId,
+                () -> versions.dictionaryChanged(ChangeVersions.Aggregate.GENRES));
+        genreStorage.refresh();
+        String loaded = versions.tag(ChangeVersions.Aggregate.GENRES);
+
+        genreStorage.refresh();
+        assertThat(versions.tag(ChangeVersions.Aggregate.GENRES)).isEqualTo(loaded);
+
+        jdbcTemplate.update("UPDATE genres SET name = 'Комедии' WHERE id = 1");
+        genreStorage.refresh();
+        assertThat(versions.tag(ChangeVersions.Aggregate.GENRES)).isNotEqualTo(loaded);
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("dictionary", "genres").functionCounter().count();
+    }
+}
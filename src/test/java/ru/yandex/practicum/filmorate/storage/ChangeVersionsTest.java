@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeVersionsTest {
+
+    @Test
+    void shouldChangeTagsOnlyForAffectedAggregates() {
+        ChangeVersions versions = new ChangeVersions();
+        String popular = versions.tag(ChangeVersions.Aggregate.FILMS, ChangeVersions.Aggregate.LIKES);
+        String genres = versions.tag(ChangeVersions.Aggregate.GENRES);
+        String film1 = versions.filmTag(1);
+        String film2 = versions.filmTag(2);
+
+        versions.likesChanged(1);
+
+        assertThat(versions.tag(ChangeVersions.Aggregate.FILMS, ChangeVersions.Aggregate.LIKES)).isNotEqualTo(popular);
+        assertThat(versions.tag(ChangeVersions.Aggregate.GENRES)).isEqualTo(genres);
+        assertThat(versions.filmTag(1)).isNotEqualTo(film1);
+        assertThat(versions.filmTag(2)).isEqualTo(film2);
+        assertThat(film1).startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void shouldChangeFilmTagWhenDictionariesChange() {
+        ChangeVersions versions = new ChangeVersions();
+        String beforeGenres = versions.filmTag(1);
+
+        versions.dictionaryChanged(ChangeVersions.Aggregate.GENRES);
+        String beforeMpa = versions.filmTag(1);
+        versions.dictionaryChanged(ChangeVersions.Aggregate.MPA);
+
+        assertThat(beforeMpa).isNotEqualTo(beforeGenres);
+        assertThat(versions.filmTag(1)).isNotEqualTo(beforeMpa);
+    }
+
+    @Test
+    void shouldUseDifferentEpochAfterRestart() {
+        assertThat(new ChangeVersions().tag(ChangeVersions.Aggregate.MPA))
+                .isNotEqualTo(new ChangeVersions().tag(ChangeVersions.Aggregate.MPA));
+    }
+
+    @Test
+    void shouldBumpVersionOnlyAfterCommit() {
+        ChangeVersions versions = new ChangeVersions();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.filmChanged(1);
+
+            assertThat(versions.getVersion(ChangeVersions.Aggregate.FILMS)).isZero();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(versions.getVersion(ChangeVersions.Aggregate.FILMS)).isEqualTo(1);
+    }
+}
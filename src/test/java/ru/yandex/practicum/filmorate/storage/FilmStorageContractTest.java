@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сценарии, которые должна проходить любая реализация FilmStorage.
+ */
+public abstract class FilmStorageContractTest {
+
+    protected FilmStorage storage;
+
+    @BeforeEach
+    void setUpStorage() {
+        storage = createStorage();
+    }
+
+    protected abstract FilmStorage createStorage();
+
+    protected abstract void createUser(long id);
+
+    @Test
+    void shouldSaveAndFindFilm() {
+        Film film = createTestFilm();
+        storage.save(film);
+
+        Optional<Film> found = storage.findById(film.getId());
+
+        assertThat(found).isPresent();
+        assertThat(found.get().getName()).isEqualTo(film.getName());
+        assertThat(found.get().getMpa().getId()).isEqualTo(film.getMpa().getId());
+    }
+
+    @Test
+    void shouldFindAllFilms() {
+        storage.save(createTestFilm());
+        storage.save(createTestFilm2());
+
+        List<Film> films = storage.getAll();
+
+        assertThat(films).hasSize(2);
+    }
+
+    @Test
+    void shouldReadAllFilmsInChunks() {
+        storage.save(createTestFilm());
+        storage.save(createTestFilm2());
+        storage.save(createTestFilm());
+
+        List<List<Film>> chunks = new ArrayList<>();
+        storage.forEachChunk(2, chunks::add);
+
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).hasSize(2);
+        assertThat(chunks.get(1)).hasSize(1);
+    }
+
+    @Test
+    void shouldUpdateFilm() {
+        Film film = createTestFilm();
+        storage.save(film);
+
+        film.setName("Updated Film");
+        storage.save(film);
+
+        Optional<Film> updated = storage.findById(film.getId());
+        assertThat(updated).isPresent();
+        assertThat(updated.get().getName()).isEqualTo("Updated Film");
+    }
+
+    @Test
+    void shouldAddAndRemoveLike() {
+        Film film = createTestFilm();
+        storage.save(film);
+
+        createUser(1L);
+
+        storage.addLike(film, 1L);
+
+        List<Film> popular = storage.getMostPopular(10);
+        assertThat(popular).hasSize(1);
+        assertThat(popular.get(0).getId()).isEqualTo(film.getId());
+
+        storage.removeLike(film, 1L);
+
+        popular = storage.getMostPopular(10);
+    }
+
+    @Test
+    void shouldPageThroughPopularFilms() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        Film film3 = createTestFilm();
+        storage.save(film1);
+        storage.save(film2);
+        storage.save(film3);
+
+        createUser(1L);
+        createUser(2L);
+
+        storage.addLike(film3, 1L);
+        storage.addLike(film3, 2L);
+        storage.addLike(film2, 1L);
+
+        assertThat(storage.getMostPopular(2, 0))
+                .extracting(Film::getId)
+                .containsExactly(film3.getId(), film2.getId());
+        assertThat(storage.getMostPopular(2, 2))
+                .extracting(Film::getId)
+                .containsExactly(film1.getId());
+
+        storage.removeLike(film3, 1L);
+        storage.removeLike(film3, 2L);
+
+        assertThat(storage.getMostPopular(3, 0))
+                .extracting(Film::getId)
+                .containsExactly(film2.getId(), film1.getId(), film3.getId());
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreAndYear() {
+        Film comedy = createTestFilm();
+        comedy.setGenres(List.of(Genre.builder().id(1).build()));
+        Film drama = createTestFilm2();
+        drama.setGenres(List.of(Genre.builder().id(2).build()));
+        storage.save(comedy);
+        storage.save(drama);
+        createUser(1L);
+        storage.addLike(drama, 1L);
+
+        assertThat(storage.getMostPopular(10, 0, 1, null))
+                .extracting(Film::getId)
+                .containsExactly(comedy.getId());
+        assertThat(storage.getMostPopular(10, 0, null, 2005))
+                .extracting(Film::getId)
+                .containsExactly(drama.getId());
+
+        comedy.setGenres(List.of(Genre.builder().id(2).build()));
+        comedy.setReleaseDate(LocalDate.of(2005, 1, 1));
+        storage.save(comedy);
+
+        assertThat(storage.getMostPopular(10, 0, 1, null)).isEmpty();
+        assertThat(storage.getMostPopular(10, 0, 2, 2005))
+                .extracting(Film::getId)
+                .containsExactly(drama.getId(), comedy.getId());
+    }
+
+    @Test
+    void shouldRecommendFilmsLikedBySimilarUsers() {
+        Film shared = createTestFilm();
+        Film recommended = createTestFilm2();
+        storage.save(shared);
+        storage.save(recommended);
+        createUser(1L);
+        createUser(2L);
+
+        storage.addLike(shared, 1L);
+        storage.addLike(shared, 2L);
+        storage.addLike(recommended, 2L);
+
+        assertThat(storage.getRecommendations(1L, 10))
+                .extracting(Film::getId)
+                .containsExactly(recommended.getId());
+
+        storage.removeLike(shared, 2L);
+
+        assertThat(storage.getRecommendations(1L, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldSearchByNameAndDescriptionAndFollowUpdates() {
+        Film byName = createTestFilm();
+        byName.setName("Матрица");
+        Film byDescription = createTestFilm2();
+        byDescription.setDescription("Фильм снят по мотивам «Матрицы» и ремейк матрица");
+        storage.save(byName);
+        storage.save(byDescription);
+
+        assertThat(storage.search("матрица", 10, 0))
+                .extracting(Film::getId)
+                .containsExactly(byName.getId(), byDescription.getId());
+        assertThat(storage.search("матрица", 10, 1))
+                .extracting(Film::getId)
+                .containsExactly(byDescription.getId());
+
+        byName.setName("Начало");
+        storage.save(byName);
+
+        assertThat(storage.search("МАТРИЦА", 10, 0))
+                .extracting(Film::getId)
+                .containsExactly(byDescription.getId());
+        assertThat(storage.search("начало", 10, 0))
+                .extracting(Film::getId)
+                .containsExactly(byName.getId());
+    }
+
+    protected Film createTestFilm() {
+        Mpa mpa = Mpa.builder().id(1).name("G").build();
+        return Film.builder()
+                .name("Test Film")
+                .description("Test Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .mpa(mpa)
+                .build();
+    }
+
+    protected Film createTestFilm2() {
+        Mpa mpa = Mpa.builder().id(2).name("PG").build();
+        return Film.builder()
+                .name("Test Film 2")
+                .description("Test Description 2")
+                .releaseDate(LocalDate.of(2005, 5, 5))
+                .duration(150)
+                .mpa(mpa)
+                .build();
+    }
+}
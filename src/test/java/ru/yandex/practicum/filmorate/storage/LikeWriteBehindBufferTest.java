@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.db.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+// Индексы обновляются после коммита, поэтому тесты идут без общей откатываемой транзакции
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LikeWriteBehindBufferTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private FilmDbStorage filmStorage;
+    private LikeWriteBehindBuffer buffer;
+    private Film film;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        buffer = new LikeWriteBehindBuffer(filmStorage, true, 3, 10, Duration.ofMillis(10), Duration.ofMillis(10),
+                3, Duration.ofMillis(1));
+
+        film = Film.builder()
+                .name("Test Film")
+                .description("Test Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .mpa(Mpa.builder().id(1).build())
+                .build();
+        filmStorage.save(film);
+        for (long id = 1; id <= 2; id++) {
+            jdbcTemplate.update(
+                    "INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                    id, "test" + id + "@mail.ru", "user" + id, "User " + id, LocalDate.of(1990, 1, 1)
+            );
+        }
+    }
+
+    @Test
+    void shouldCollapseOppositeAndDuplicateCommands() {
+        buffer.submit(LikeChange.added(film.getId(), 1L));
+        buffer.submit(LikeChange.added(film.getId(), 1L));
+        buffer.submit(LikeChange.added(film.getId(), 2L));
+        buffer.flush();
+        buffer.submit(LikeChange.removed(film.getId(), 2L));
+
+        assertThat(countLikes()).isEqualTo(2);
+
+        buffer.flush();
+
+        assertThat(countLikes()).isEqualTo(1);
+        assertThat(buffer.getPending()).isZero();
+    }
+
+    @Test
+    void shouldKeepPopularityInSyncWithAppliedChanges() {
+        buffer.submit(LikeChange.added(film.getId(), 1L));
+        buffer.submit(LikeChange.removed(film.getId(), 1L));
+        buffer.submit(LikeChange.added(film.getId(), 2L));
+        buffer.flush();
+
+        buffer.submit(LikeChange.added(film.getId(), 2L));
+        buffer.flush();
+
+        assertThat(countLikes()).isEqualTo(1);
+        assertThat(filmStorage.getMostPopular(1)).extracting(Film::getId).containsExactly(film.getId());
+    }
+
+    @Test
+    void shouldRejectCommandsWhenQueueIsFull() {
+        buffer.submit(LikeChange.added(film.getId(), 1L));
+        buffer.submit(LikeChange.added(film.getId(), 2L));
+        buffer.submit(LikeChange.removed(film.getId(), 1L));
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> buffer.submit(LikeChange.removed(film.getId(), 2L)));
+    }
+
+    @Test
+    void shouldRetryBatchAfterStorageFailure() {
+        FilmStorage failingOnce = spy(filmStorage);
+        doThrow(new TransientDataAccessResourceException("Соединение потеряно"))
+                .doCallRealMethod()
+                .when(failingOnce).applyLikeChanges(anyList());
+        buffer = new LikeWriteBehindBuffer(failingOnce, true, 3, 10, Duration.ofMillis(10), Duration.ofMillis(10),
+                3, Duration.ofMillis(1));
+
+        buffer.submit(LikeChange.added(film.getId(), 1L));
+        buffer.flush();
+
+        assertThat(countLikes()).isEqualTo(1);
+        assertThat(filmStorage.getMostPopular(1)).extracting(Film::getId).containsExactly(film.getId());
+        verify(failingOnce, times(2)).applyLikeChanges(anyList());
+    }
+
+    @Test
+    void shouldWriteOneByOneAndCountChangesThatNeverSucceed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            buffer.submit(LikeChange.added(film.getId(), 1L));
+            buffer.submit(LikeChange.added(film.getId(), 999L));
+            buffer.flush();
+
+            assertThat(countLikes()).isEqualTo(1);
+            assertThat(registry.counter(LikeWriteBehindBuffer.LOST_COUNTER_NAME).count()).isEqualTo(1.0);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    private int countLikes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Integer.class);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сценарии, которые должна проходить любая реализация UserStorage.
+ */
+public abstract class UserStorageContractTest {
+
+    protected UserStorage storage;
+
+    @BeforeEach
+    void setUpStorage() {
+        storage = createStorage();
+    }
+
+    protected abstract UserStorage createStorage();
+
+    @Test
+    void shouldSaveAndFindUser() {
+        User user = createTestUser();
+        storage.save(user);
+
+        Optional<User> found = storage.findById(user.getId());
+
+        assertThat(found).isPresent();
+        assertThat(found.get().getEmail()).isEqualTo(user.getEmail());
+        assertThat(found.get().getLogin()).isEqualTo(user.getLogin());
+    }
+
+    @Test
+    void shouldFindAllUsers() {
+        storage.save(createTestUser());
+        storage.save(createTestUser2());
+
+        List<User> users = storage.getAll();
+
+        assertThat(users).hasSize(2);
+    }
+
+    @Test
+    void shouldUpdateUser() {
+        User user = createTestUser();
+        storage.save(user);
+
+        user.setName("Updated Name");
+        storage.save(user);
+
+        Optional<User> updated = storage.findById(user.getId());
+        assertThat(updated).isPresent();
+        assertThat(updated.get().getName()).isEqualTo("Updated Name");
+    }
+
+    @Test
+    void shouldAddAndRemoveFriendship() {
+        User user1 = createTestUser();
+        User user2 = createTestUser2();
+        storage.save(user1);
+        storage.save(user2);
+
+        storage.addFriendship(user1.getId(), user2.getId());
+
+        List<User> friends = storage.getAllFriends(user1);
+        assertThat(friends).hasSize(1);
+        assertThat(friends.get(0).getId()).isEqualTo(user2.getId());
+
+        storage.removeFriendship(user1.getId(), user2.getId());
+
+        List<User> friendsAfterRemove = storage.getAllFriends(user1);
+        assertThat(friendsAfterRemove).isEmpty();
+    }
+
+    @Test
+    void shouldFindCommonFriends() {
+        User user1 = createTestUser();
+        User user2 = createTestUser2();
+        User common1 = createTestUser();
+        User common2 = createTestUser2();
+        User onlyFirst = createTestUser();
+        storage.save(user1);
+        storage.save(user2);
+        storage.save(common1);
+        storage.save(common2);
+        storage.save(onlyFirst);
+
+        storage.addFriendship(user1.getId(), common2.getId());
+        storage.addFriendship(user1.getId(), common1.getId());
+        storage.addFriendship(user1.getId(), onlyFirst.getId());
+        storage.addFriendship(user2.getId(), common1.getId());
+        storage.addFriendship(user2.getId(), common2.getId());
+
+        assertThat(storage.getCommonFriends(user1.getId(), user2.getId()))
+                .extracting(User::getId)
+                .containsExactly(common1.getId(), common2.getId());
+
+        storage.removeFriendship(user2.getId(), common1.getId());
+
+        assertThat(storage.getCommonFriends(user1.getId(), user2.getId()))
+                .extracting(User::getId)
+                .containsExactly(common2.getId());
+    }
+
+    @Test
+    void shouldGetListOfUsersByIds() {
+        User user1 = createTestUser();
+        User user2 = createTestUser2();
+        storage.save(user1);
+        storage.save(user2);
+
+        List<User> users = storage.getListOfUsers(List.of(user1.getId(), user2.getId()));
+
+        assertThat(users).hasSize(2);
+    }
+
+    protected User createTestUser() {
+        return User.builder()
+                .email("test@mail.ru")
+                .login("testLogin")
+                .name("Test Name")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    protected User createTestUser2() {
+        return User.builder()
+                .email("test2@mail.ru")
+                .login("testLogin2")
+                .name("Test Name 2")
+                .birthday(LocalDate.of(1995, 5, 5))
+                .build();
+    }
+}
@@ -1,112 +1,345 @@
 package ru.yandex.practicum.filmorate.storage.db;
 
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorageContractTest;
 import ru.yandex.practicum.filmorate.storage.db.rowmapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Sql(scripts = {"/schema.sql", "/data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
-public class FilmDbStorageTest {
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class FilmDbStorageTest extends FilmStorageContractTest {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    private FilmDbStorage filmStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    protected FilmStorage createStorage() {
+        return new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(), new LikeMatrixIndex(),
+                new FilmSearchIndex(), new ChangeVersions());
+    }
+
+    @Override
+    protected void createUser(long id) {
+        jdbcTemplate.update(
+                "INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                id, "test" + id + "@mail.ru", "testuser" + id, "Test User", LocalDate.of(1990, 1, 1)
+        );
+    }
+
+    @Test
+    void shouldLoadPopularityFromLikesCountColumn() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        storage.save(film1);
+        storage.save(film2);
+
+        createUser(1L);
+        storage.addLike(film2, 1L);
+
+        FilmDbStorage restarted = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        restarted.loadPopularity();
+
+        assertThat(restarted.getMostPopular(10))
+                .extracting(Film::getId)
+                .containsExactly(film2.getId(), film1.getId());
+    }
+
+    @Test
+    void shouldLoadLikeMatrixFromLikesTable() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        storage.save(film1);
+        storage.save(film2);
+
+        createUser(1L);
+        createUser(2L);
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film1.getId(), 1L);
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film1.getId(), 2L);
+        jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", film2.getId(), 2L);
+
+        FilmDbStorage restarted = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        restarted.loadIndexes();
 
-    @BeforeEach
-    void setUp() {
-        filmStorage = new FilmDbStorage(jdbcTemplate, new FilmRowMapper());
+        assertThat(restarted.getRecommendations(1L, 10))
+                .extracting(Film::getId)
+                .containsExactly(film2.getId());
     }
 
     @Test
-    void shouldSaveAndFindFilm() {
+    void shouldLoadSearchIndexFromFilmsTable() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        storage.save(film1);
+        storage.save(film2);
+
+        FilmDbStorage restarted = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        restarted.loadIndexes();
+
+        assertThat(restarted.search(film2.getName(), 10, 0))
+                .extracting(Film::getId)
+                .first()
+                .isEqualTo(film2.getId());
+    }
+
+    @Test
+    void shouldLoadGenreAndYearRankingsFromFilmsTable() {
+        Film film1 = createTestFilm();
+        film1.setGenres(List.of(Genre.builder().id(1).build()));
+        Film film2 = createTestFilm2();
+        storage.save(film1);
+        storage.save(film2);
+
+        FilmDbStorage restarted = new FilmDbStorage(jdbcTemplate, new FilmRowMapper(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        restarted.loadPopularity();
+
+        assertThat(restarted.getMostPopular(10, 0, 1, 2000))
+                .extracting(Film::getId)
+                .containsExactly(film1.getId());
+        assertThat(restarted.getMostPopular(10, 0, null, 2005))
+                .extracting(Film::getId)
+                .containsExactly(film2.getId());
+    }
+
+    @Test
+    void shouldNotLoseChangeCommittedAfterFilmWasRead() {
         Film film = createTestFilm();
-        filmStorage.save(film);
+        storage.save(film);
+        Film loaded = storage.findById(film.getId()).orElseThrow();
+        jdbcTemplate.update("UPDATE films SET name = ? WHERE id = ?", "Changed elsewhere", film.getId());
 
-        Optional<Film> found = filmStorage.findById(film.getId());
+        storage.save(loaded);
 
-        assertThat(found).isPresent();
-        assertThat(found.get().getName()).isEqualTo(film.getName());
-        assertThat(found.get().getMpa().getId()).isEqualTo(film.getMpa().getId());
+        assertThat(storage.findById(film.getId()).orElseThrow().getName()).isEqualTo(film.getName());
     }
 
     @Test
-    void shouldFindAllFilms() {
-        filmStorage.save(createTestFilm());
-        filmStorage.save(createTestFilm2());
+    void shouldKeepGenresWhenLoadedFilmIsRenamed() {
+        Film film = createTestFilm();
+        film.setGenres(List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()));
+        storage.save(film);
 
-        List<Film> films = filmStorage.getAll();
+        Film loaded = storage.findById(film.getId()).orElseThrow();
+        loaded.setName("Renamed");
+        storage.save(loaded);
 
-        assertThat(films).hasSize(2);
+        assertThat(genreIdsOf(film.getId())).containsExactly(1, 2);
+        assertThat(storage.findById(film.getId()).orElseThrow().getName()).isEqualTo("Renamed");
     }
 
     @Test
-    void shouldUpdateFilm() {
+    void shouldLoadFilmsWithMpaAndGenresInOneQuery() {
+        Film withGenres = createTestFilm();
+        withGenres.setGenres(List.of(Genre.builder().id(3).build(), Genre.builder().id(1).build()));
+        Film withoutGenres = createTestFilm2();
+        storage.save(withGenres);
+        storage.save(withoutGenres);
+
+        List<Film> all = storage.getAll();
+        Film found = storage.findById(withGenres.getId()).orElseThrow();
+        List<Film> byIds = storage.getByIds(List.of(withoutGenres.getId(), withGenres.getId()));
+
+        assertThat(all).allMatch(Film::genresLoaded);
+        assertThat(found.getMpa().getName()).isNotBlank();
+        assertThat(found.getGenres()).extracting(Genre::getId).containsExactly(1, 3);
+        assertThat(found.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Мультфильм");
+        assertThat(byIds).extracting(Film::getId).containsExactly(withoutGenres.getId(), withGenres.getId());
+        assertThat(byIds.get(0).getGenres()).isEmpty();
+        assertThat(byIds.get(1).getGenres()).hasSize(2);
+    }
+
+    @Test
+    void shouldClearGenresWhenLoadedFilmIsSavedWithoutThem() {
         Film film = createTestFilm();
-        filmStorage.save(film);
+        film.setGenres(List.of(Genre.builder().id(1).build()));
+        storage.save(film);
 
-        film.setName("Updated Film");
-        filmStorage.save(film);
+        Film loaded = storage.findById(film.getId()).orElseThrow();
+        loaded.setGenres(List.of());
+        storage.save(loaded);
 
-        Optional<Film> updated = filmStorage.findById(film.getId());
-        assertThat(updated).isPresent();
-        assertThat(updated.get().getName()).isEqualTo("Updated Film");
+        assertThat(genreIdsOf(film.getId())).isEmpty();
     }
 
     @Test
-    void shouldAddAndRemoveLike() {
+    void shouldClearGenresWhenFilmReadWithoutGenresIsSavedWithoutThem() {
         Film film = createTestFilm();
-        filmStorage.save(film);
+        film.setGenres(List.of(Genre.builder().id(1).build()));
+        storage.save(film);
 
-        jdbcTemplate.update(
-                "INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
-                1L, "test@mail.ru", "testuser", "Test User", LocalDate.of(1990, 1, 1)
-        );
+        Film loaded = storage.findById(film.getId()).orElseThrow();
+        loaded.setGenres(List.of());
+        loaded.markPersisted(false);
+        storage.save(loaded);
+
+        assertThat(genreIdsOf(film.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldNotFailWhenGenreWasAlreadyAddedConcurrently() {
+        Film film = createTestFilm();
+        storage.save(film);
+        Film first = storage.findById(film.getId()).orElseThrow();
+        Film second = storage.findById(film.getId()).orElseThrow();
+
+        first.setGenres(List.of(Genre.builder().id(1).build()));
+        storage.save(first);
+        second.setGenres(List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()));
+        storage.save(second);
+
+        assertThat(genreIdsOf(film.getId())).containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldWriteOnlyGenreDifference() {
+        Film film = createTestFilm();
+        film.setGenres(List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()));
+        storage.save(film);
+
+        film.setGenres(List.of(Genre.builder().id(2).build(), Genre.builder().id(3).build()));
+        storage.save(film);
+
+        assertThat(genreIdsOf(film.getId())).containsExactly(2, 3);
+    }
+
+    @Test
+    void shouldKeepLikesCountInSyncWithLikes() {
+        Film film = createTestFilm();
+        storage.save(film);
+        createUser(1L);
+        createUser(2L);
 
-        filmStorage.addLike(film, 1L);
+        storage.addLike(film, 1L);
+        storage.addLike(film, 2L);
+        storage.addLike(film, 2L);
+        storage.removeLike(film, 1L);
 
-        List<Film> popular = filmStorage.getMostPopular(10);
-        assertThat(popular).hasSize(1);
-        assertThat(popular.get(0).getId()).isEqualTo(film.getId());
+        assertThat(likesCountOf(film.getId())).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldReconcileDriftedLikesCountsInChunks() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        Film film3 = createTestFilm();
+        storage.save(film1);
+        storage.save(film2);
+        storage.save(film3);
+        createUser(1L);
+        storage.addLike(film1, 1L);
+        storage.addLike(film3, 1L);
+        jdbcTemplate.update("UPDATE films SET likes_count = 7 WHERE id = ?", film1.getId());
+        jdbcTemplate.update("UPDATE films SET likes_count = 3 WHERE id = ?", film2.getId());
+
+        int corrected = new LikeCountReconciler((FilmDbStorage) storage, 2).reconcile();
+
+        assertThat(corrected).isEqualTo(2);
+        assertThat(likesCountOf(film1.getId())).isEqualTo(1L);
+        assertThat(likesCountOf(film2.getId())).isZero();
+        assertThat(likesCountOf(film3.getId())).isEqualTo(1L);
+        assertThat(((FilmDbStorage) storage).reconcileLikeCounts(2)).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldMoveReconciledCountsIntoPopularityRanking() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        storage.save(film1);
+        storage.save(film2);
+        createUser(1L);
+        createUser(2L);
+        storage.addLike(film1, 1L);
+        jdbcTemplate.update("INSERT INTO likes(film_id, user_id) VALUES (?, ?)", film2.getId(), 1L);
+        jdbcTemplate.update("INSERT INTO likes(film_id, user_id) VALUES (?, ?)", film2.getId(), 2L);
+
+        ((FilmDbStorage) storage).reconcileLikeCounts(10);
+
+        assertThat(storage.getMostPopular(10))
+                .extracting(Film::getId)
+                .containsExactly(film2.getId(), film1.getId());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldNotChangeRankingWhenLikeIsRolledBack() {
+        Film film1 = createTestFilm();
+        Film film2 = createTestFilm2();
+        storage.save(film1);
+        storage.save(film2);
+        createUser(1L);
+        storage.addLike(film1, 1L);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            storage.addLike(film2, 1L);
+            storage.removeLike(film1, 1L);
+            status.setRollbackOnly();
+        });
+
+        assertThat(storage.getMostPopular(10))
+                .extracting(Film::getId)
+                .containsExactly(film1.getId(), film2.getId());
+        assertThat(likesCountOf(film1.getId())).isEqualTo(1L);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldNotIndexFilmsWhenSaveIsRolledBack() {
+        Film saved = createTestFilm();
+        saved.setName("Сохранённый");
+        storage.save(saved);
 
-        filmStorage.removeLike(film, 1L);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Film single = createTestFilm();
+            single.setName("Откатанный");
+            storage.save(single);
+            Film bulk = createTestFilm2();
+            bulk.setName("Откатанный пакет");
+            storage.saveAll(List.of(bulk));
+            saved.setName("Переименованный");
+            storage.save(saved);
+            status.setRollbackOnly();
+        });
 
-        popular = filmStorage.getMostPopular(10);
+        assertThat(storage.search("откатанный", 10, 0)).isEmpty();
+        assertThat(storage.search("переименованный", 10, 0)).isEmpty();
+        assertThat(storage.search("сохраненный", 10, 0)).extracting(Film::getId).containsExactly(saved.getId());
+        assertThat(storage.getMostPopular(10)).extracting(Film::getId).containsExactly(saved.getId());
     }
 
-    private Film createTestFilm() {
-        Mpa mpa = Mpa.builder().id(1).name("G").build();
-        return Film.builder()
-                .name("Test Film")
-                .description("Test Description")
-                .releaseDate(LocalDate.of(2000, 1, 1))
-                .duration(120)
-                .mpa(mpa)
-                .build();
+    private long likesCountOf(long filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Long.class, filmId);
     }
 
-    private Film createTestFilm2() {
-        Mpa mpa = Mpa.builder().id(2).name("PG").build();
-        return Film.builder()
-                .name("Test Film 2")
-                .description("Test Description 2")
-                .releaseDate(LocalDate.of(2005, 5, 5))
-                .duration(150)
-                .mpa(mpa)
-                .build();
+    private List<Integer> genreIdsOf(long filmId) {
+        return jdbcTemplate.queryForList("SELECT genre_id FROM film_genres WHERE film_id = ? ORDER BY genre_id",
+                Integer.class, filmId);
     }
 }
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdSetLookupTest {
+
+    @Test
+    void shouldPadSmallSetsToPowerOfTwoBuckets() {
+        assertThat(IdSetLookup.condition(1)).isEqualTo("IN (?)");
+        assertThat(IdSetLookup.condition(3)).isEqualTo("IN (?, ?, ?, ?)");
+        assertThat(IdSetLookup.condition(4)).isEqualTo(IdSetLookup.condition(3));
+        assertThat(IdSetLookup.parameters(List.of(5L, 7L, 9L))).containsExactly(5L, 7L, 9L, 9L);
+    }
+
+    @Test
+    void shouldUseArrayParameterForLargeSets() {
+        List<Long> ids = LongStream.rangeClosed(1, IdSetLookup.MAX_INLINE_IDS + 1).boxed().toList();
+
+        Object[] params = IdSetLookup.parameters(ids);
+
+        assertThat(IdSetLookup.condition(ids.size())).isEqualTo("= ANY(?)");
+        assertThat(params).hasSize(1);
+        assertThat((Object[]) params[0]).hasSize(ids.size());
+    }
+
+    @Test
+    void shouldSplitVeryLargeSetsIntoChunksInOrder() {
+        List<Long> ids = LongStream.rangeClosed(1, IdSetLookup.CHUNK_SIZE * 2L + 1).boxed().toList();
+        List<String> queries = new ArrayList<>();
+
+        List<Object> found = IdSetLookup.findAll("SELECT * FROM users WHERE id %s", ids, (query, params) -> {
+            queries.add(query);
+            Object[] chunk = params.length == 1 && params[0] instanceof Object[] array ? array : params;
+            return List.of(chunk[0]);
+        });
+
+        assertThat(queries).containsExactly(
+                "SELECT * FROM users WHERE id = ANY(?)",
+                "SELECT * FROM users WHERE id = ANY(?)",
+                "SELECT * FROM users WHERE id IN (?)");
+        assertThat(found).containsExactly(1L, IdSetLookup.CHUNK_SIZE + 1L, IdSetLookup.CHUNK_SIZE * 2L + 1);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.storage.db.rowmapper.MpaRowMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class QueryMetricsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry registry;
+    private MpaDbStorage mpaStorage;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        mpaStorage = new MpaDbStorage(jdbcTemplate, new MpaRowMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void shouldRecordTimeAndRowsByQueryName() {
+        mpaStorage.getAll();
+        mpaStorage.getByIds(List.of(1, 2));
+
+        assertThat(registry.get(QueryMetrics.TIMER_NAME)
+                .tags("repository", "MpaDbStorage", "query", "FIND_ALL_QUERY")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(QueryMetrics.ROWS_NAME)
+                .tags("repository", "MpaDbStorage", "query", "FIND_ALL_QUERY")
+                .summary().totalAmount()).isEqualTo(5);
+        assertThat(registry.get(QueryMetrics.ROWS_NAME)
+                .tags("repository", "MpaDbStorage", "query", "FIND_BY_IDS_QUERY")
+                .summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCountErrors() {
+        MpaDbStorage brokenStorage = new MpaDbStorage(jdbcTemplate, (rs, rowNum) -> {
+            throw new IllegalStateException("broken mapper");
+        });
+
+        assertThrows(IllegalStateException.class, brokenStorage::getAll);
+
+        assertThat(registry.get(QueryMetrics.ERRORS_NAME)
+                .tags("repository", "MpaDbStorage", "query", "FIND_ALL_QUERY",
+                        "exception", "IllegalStateException")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResolveTemplateQueriesByPrefix() {
+        QueryMetrics metrics = QueryMetrics.of(FilmDbStorage.class);
+
+        assertThat(metrics.nameOf("SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id, "
+                + "m.id AS mpa_id, m.name AS mpa_name, "
+                + "(SELECT ARRAY_AGG(g.id ORDER BY g.id) FROM film_genres fg JOIN genres g ON fg.genre_id = g.id "
+                + "WHERE fg.film_id = f.id) AS genre_ids, "
+                + "(SELECT ARRAY_AGG(g.name ORDER BY g.id) FROM film_genres fg JOIN genres g ON fg.genre_id = g.id "
+                + "WHERE fg.film_id = f.id) AS genre_names "
+                + "FROM films f LEFT JOIN mpa m ON f.mpa_id = m.id "
+                + "WHERE f.id IN (?,?)")).isEqualTo("FIND_FILMS_BY_IDS_QUERY");
+        assertThat(metrics.nameOf("SELECT 1")).isEqualTo(QueryMetrics.UNNAMED_QUERY);
+    }
+}
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.storage.db;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SchemaMigrationTest {
+
+    private SimpleDriverDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:migration" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void shouldApplyMigrationsOnlyOnce() {
+        MigrateResult first = flyway().migrate();
+        jdbc.update("INSERT INTO users (email, login, name, birthday) VALUES ('a@mail.ru', 'a', 'A', '2000-01-01')");
+
+        MigrateResult second = flyway().migrate();
+
+        assertThat(first.migrationsExecuted).isEqualTo(4);
+        assertThat(second.migrationsExecuted).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM genres", Integer.class)).isEqualTo(6);
+    }
+
+    @Test
+    void shouldCreateReverseLookupIndexes() {
+        flyway().migrate();
+
+        List<String> indexes = jdbc.queryForList(
+                "SELECT LOWER(index_name) FROM information_schema.indexes WHERE table_schema = 'PUBLIC'",
+                String.class);
+
+        assertThat(indexes).contains("friends_friend_id_idx", "likes_user_id_idx", "film_genres_genre_id_idx",
+                "films_likes_count_idx");
+    }
+
+    @Test
+    void shouldAdoptSchemaCreatedBeforeMigrations() {
+        jdbc.execute("CREATE TABLE mpa (id INTEGER PRIMARY KEY, name VARCHAR(20) NOT NULL)");
+        jdbc.execute("CREATE TABLE genres (id INTEGER PRIMARY KEY, name VARCHAR(20) NOT NULL)");
+        jdbc.execute("INSERT INTO mpa (id, name) VALUES (1, 'G')");
+        jdbc.execute("CREATE TABLE users (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "email VARCHAR(255) NOT NULL, login VARCHAR(255) NOT NULL, name VARCHAR(255), birthday DATE NOT NULL)");
+        jdbc.execute("CREATE TABLE films (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, description VARCHAR(200) NOT NULL, release_date DATE NOT NULL, "
+                + "duration DOUBLE NOT NULL, mpa_id INTEGER REFERENCES mpa(id))");
+        jdbc.execute("CREATE TABLE likes (film_id BIGINT NOT NULL REFERENCES films(id) ON DELETE CASCADE, "
+                + "user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE, PRIMARY KEY (film_id, user_id))");
+        jdbc.update("INSERT INTO users (email, login, name, birthday) VALUES ('a@mail.ru', 'a', 'A', '2000-01-01')");
+        jdbc.update("INSERT INTO films (name, description, release_date, duration, mpa_id) "
+                + "VALUES ('Film', 'Description', '2000-01-01', 90, 1)");
+        jdbc.update("INSERT INTO likes (film_id, user_id) VALUES (1, 1)");
+
+        flyway().migrate();
+
+        assertThat(jdbc.queryForObject("SELECT likes_count FROM films WHERE id = 1", Long.class)).isEqualTo(1L);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM mpa", Integer.class)).isEqualTo(5);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM friends", Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldKeepRestartSchemaWorkFlatAsDataGrows() {
+        long emptyDatabase = rowsReadByRestartMigration(0);
+        long filledDatabase = rowsReadByRestartMigration(20_000);
+
+        assertThat(filledDatabase).isEqualTo(emptyDatabase);
+    }
+
+    // Повторный запуск миграций на базе с rows пользователями, фильмами и лайками. Возвращает
+    // количество строк, которые прошли через его запросы, по статистике запросов H2.
+    private long rowsReadByRestartMigration(int rows) {
+        flyway().migrate();
+        jdbc.update("INSERT INTO users (email, login, name, birthday) "
+                + "SELECT 'u' || x || '@mail.ru', 'u' || x, 'U', DATE '2000-01-01' FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbc.update("INSERT INTO films (name, description, release_date, duration, mpa_id, likes_count) "
+                + "SELECT 'Film ' || x, 'Description', DATE '2000-01-01', 90, 1, 1 FROM SYSTEM_RANGE(1, ?)", rows);
+        jdbc.update("INSERT INTO likes (film_id, user_id) SELECT id, id FROM films");
+
+        jdbc.execute("SET QUERY_STATISTICS TRUE");
+        MigrateResult restart = flyway().migrate();
+        List<Map<String, Object>> statistics = jdbc.queryForList(
+                "SELECT sql_statement, cumulative_row_count FROM information_schema.query_statistics");
+        // Следующий замер начинается на новой базе
+        tearDown();
+        setUp();
+
+        assertThat(restart.migrationsExecuted).isZero();
+        return statistics.stream()
+                .mapToLong(row -> ((Number) row.get("CUMULATIVE_ROW_COUNT")).longValue())
+                .sum();
+    }
+
+    private Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+    }
+}
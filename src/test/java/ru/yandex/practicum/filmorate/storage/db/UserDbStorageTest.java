@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.storage.db;
 
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -8,110 +7,64 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorageContractTest;
 import ru.yandex.practicum.filmorate.storage.db.rowmapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Sql(scripts = {"/schema.sql", "/data.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
-class UserDbStorageTest {
+@Sql(scripts = "/reset.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class UserDbStorageTest extends UserStorageContractTest {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    private UserDbStorage userStorage;
-
-    @BeforeEach
-    void setUp() {
-        userStorage = new UserDbStorage(jdbcTemplate, new UserRowMapper());
-    }
-
-    @Test
-    void shouldSaveAndFindUser() {
-        User user = createTestUser();
-        userStorage.save(user);
-
-        Optional<User> found = userStorage.findById(user.getId());
-
-        assertThat(found).isPresent();
-        assertThat(found.get().getEmail()).isEqualTo(user.getEmail());
-        assertThat(found.get().getLogin()).isEqualTo(user.getLogin());
-    }
-
-    @Test
-    void shouldFindAllUsers() {
-        userStorage.save(createTestUser());
-        userStorage.save(createTestUser2());
-
-        List<User> users = userStorage.getAll();
-
-        assertThat(users).hasSize(2);
-    }
-
-    @Test
-    void shouldUpdateUser() {
-        User user = createTestUser();
-        userStorage.save(user);
-
-        user.setName("Updated Name");
-        userStorage.save(user);
-
-        Optional<User> updated = userStorage.findById(user.getId());
-        assertThat(updated).isPresent();
-        assertThat(updated.get().getName()).isEqualTo("Updated Name");
+    @Override
+    protected UserStorage createStorage() {
+        return new UserDbStorage(jdbcTemplate, new UserRowMapper(), new FriendGraphIndex(), new ChangeVersions());
     }
 
     @Test
-    void shouldAddAndRemoveFriendship() {
+    void shouldLoadFriendGraphFromFriendsTable() {
         User user1 = createTestUser();
         User user2 = createTestUser2();
-        userStorage.save(user1);
-        userStorage.save(user2);
-
-        userStorage.addFriendship(user1.getId(), user2.getId());
-
-        List<User> friends = userStorage.getAllFriends(user1);
-        assertThat(friends).hasSize(1);
-        assertThat(friends.get(0).getId()).isEqualTo(user2.getId());
-
-        userStorage.removeFriendship(user1.getId(), user2.getId());
-
-        List<User> friendsAfterRemove = userStorage.getAllFriends(user1);
-        assertThat(friendsAfterRemove).isEmpty();
+        User common = createTestUser();
+        storage.save(user1);
+        storage.save(user2);
+        storage.save(common);
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", user1.getId(), common.getId());
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", user2.getId(), common.getId());
+
+        UserDbStorage restarted = new UserDbStorage(jdbcTemplate, new UserRowMapper(), new FriendGraphIndex(),
+                new ChangeVersions());
+        restarted.loadFriendGraph();
+
+        assertThat(restarted.getCommonFriends(user1.getId(), user2.getId()))
+                .extracting(User::getId)
+                .containsExactly(common.getId());
     }
 
     @Test
-    void shouldGetListOfUsersByIds() {
-        User user1 = createTestUser();
-        User user2 = createTestUser2();
-        userStorage.save(user1);
-        userStorage.save(user2);
-
-        List<User> users = userStorage.getListOfUsers(List.of(user1.getId(), user2.getId()));
-
-        assertThat(users).hasSize(2);
-    }
-
-    private User createTestUser() {
-        return User.builder()
-                .email("test@mail.ru")
-                .login("testLogin")
-                .name("Test Name")
-                .birthday(LocalDate.of(1990, 1, 1))
-                .build();
-    }
-
-    private User createTestUser2() {
-        return User.builder()
-                .email("test2@mail.ru")
-                .login("testLogin2")
-                .name("Test Name 2")
-                .birthday(LocalDate.of(1995, 5, 5))
-                .build();
+    void shouldFindUsersByLargeIdSetInRequestedOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < IdSetLookup.MAX_INLINE_IDS + 5; i++) {
+            User user = createTestUser();
+            storage.save(user);
+            ids.add(user.getId());
+        }
+        Collections.reverse(ids);
+        ids.add(9999L);
+
+        List<User> found = storage.getByIds(ids);
+
+        assertThat(found).extracting(User::getId).containsExactlyElementsOf(ids.subList(0, ids.size() - 1));
     }
 }
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLongSetMapTest {
+
+    @Test
+    void shouldKeepValuesSortedAndUnique() {
+        ConcurrentLongSetMap map = new ConcurrentLongSetMap();
+
+        assertThat(map.add(1, 5)).isTrue();
+        assertThat(map.add(1, 2)).isTrue();
+        assertThat(map.add(1, 9)).isTrue();
+        assertThat(map.add(1, 5)).isFalse();
+
+        assertThat(map.get(1)).containsExactly(2, 5, 9);
+        assertThat(map.contains(1, 9)).isTrue();
+        assertThat(map.get(2)).isEmpty();
+    }
+
+    @Test
+    void shouldDropKeyWhenLastValueRemoved() {
+        ConcurrentLongSetMap map = new ConcurrentLongSetMap();
+        map.add(1, 5);
+        map.add(1, 7);
+
+        assertThat(map.remove(1, 5)).isTrue();
+        assertThat(map.remove(1, 5)).isFalse();
+        assertThat(map.get(1)).containsExactly(7);
+
+        map.remove(1, 7);
+
+        assertThat(map.keyCount()).isZero();
+    }
+}
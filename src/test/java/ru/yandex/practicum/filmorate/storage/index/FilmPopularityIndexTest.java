@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmPopularityIndexTest {
+
+    private FilmPopularityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmPopularityIndex();
+    }
+
+    @Test
+    void shouldOrderByLikesThenById() {
+        index.register(3);
+        index.register(1);
+        index.register(2);
+        index.increment(2);
+        index.increment(3);
+
+        assertThat(index.getTopFilmIds(10, 0)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void shouldMoveFilmWhenLikesChange() {
+        index.rebuild(Map.of(1L, 5L, 2L, 3L));
+
+        index.increment(2);
+        index.increment(2);
+        index.increment(2);
+        index.decrement(1);
+
+        assertThat(index.getTopFilmIds(10, 0)).containsExactly(2L, 1L);
+        assertThat(index.getLikes(2)).isEqualTo(6);
+        assertThat(index.getLikes(1)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotGoBelowZeroLikes() {
+        index.register(1);
+        index.decrement(1);
+
+        assertThat(index.getLikes(1)).isZero();
+        assertThat(index.getTopFilmIds(10, 0)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldPageDeeperIntoRanking() {
+        for (long id = 1; id <= 5; id++) {
+            index.register(id);
+            for (int i = 0; i < id; i++) {
+                index.increment(id);
+            }
+        }
+
+        assertThat(index.getTopFilmIds(2, 0)).containsExactly(5L, 4L);
+        assertThat(index.getTopFilmIds(2, 2)).containsExactly(3L, 2L);
+        assertThat(index.getTopFilmIds(2, 4)).containsExactly(1L);
+        assertThat(index.getTopFilmIds(2, 5)).isEmpty();
+    }
+
+    @Test
+    void shouldRankWithinGenreAndYear() {
+        index.categorize(1, 2000, new int[]{1, 2});
+        index.categorize(2, 2000, new int[]{2});
+        index.categorize(3, 2010, new int[]{1});
+        index.increment(3);
+        index.increment(2);
+        index.increment(2);
+
+        assertThat(index.getTopFilmIds(10, 0, 1, null)).containsExactly(3L, 1L);
+        assertThat(index.getTopFilmIds(10, 0, null, 2000)).containsExactly(2L, 1L);
+        assertThat(index.getTopFilmIds(10, 0, 2, 2000)).containsExactly(2L, 1L);
+        assertThat(index.getTopFilmIds(10, 0, 1, 2000)).containsExactly(1L);
+        assertThat(index.getTopFilmIds(10, 0, 5, null)).isEmpty();
+    }
+
+    @Test
+    void shouldMoveFilmBetweenSegmentsWhenRecategorized() {
+        index.categorize(1, 2000, new int[]{1});
+        index.increment(1);
+
+        index.categorize(1, 2001, new int[]{2});
+        index.increment(1);
+
+        assertThat(index.getTopFilmIds(10, 0, 1, null)).isEmpty();
+        assertThat(index.getTopFilmIds(10, 0, null, 2000)).isEmpty();
+        assertThat(index.getTopFilmIds(10, 0, 2, 2001)).containsExactly(1L);
+        assertThat(index.getTopFilmIds(10, 0, 1, 2000)).isEmpty();
+        assertThat(index.getTopFilmIds(10, 0, 2, 2000)).isEmpty();
+        assertThat(index.getLikes(1)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotPresizeResultFromRequestedCount() {
+        index.register(1);
+
+        assertThat(index.getTopFilmIds(Integer.MAX_VALUE, 0)).containsExactly(1L);
+    }
+}
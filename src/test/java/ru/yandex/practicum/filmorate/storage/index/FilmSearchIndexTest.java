@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTest {
+
+    @Test
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "Дом у озера", "Письма через время");
+        index.index(2, "Письма", "Драма про дом");
+        index.index(3, "Озеро", "Ничего общего");
+
+        assertThat(index.search("дом", 10, 0)).containsExactly(1L, 2L);
+        assertThat(index.search("письма драма", 10, 0)).containsExactly(2L, 1L);
+        assertThat(index.search("письма драма", 1, 1)).containsExactly(1L);
+        assertThat(index.search("кино", 10, 0)).isEmpty();
+    }
+
+    @Test
+    void shouldReplaceTermsOnReindex() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "Ёлки", null);
+
+        assertThat(index.search("елки", 10, 0)).containsExactly(1L);
+
+        index.index(1, "Новый год", null);
+
+        assertThat(index.search("елки", 10, 0)).isEmpty();
+        assertThat(index.search("год", 10, 0)).containsExactly(1L);
+    }
+
+    @Test
+    void shouldSplitOnPunctuationAndIgnoreCase() {
+        assertThat(FilmSearchIndex.tokenize("Гарри Поттер: Кубок-огня, 2005!"))
+                .containsExactly("гарри", "поттер", "кубок", "огня", "2005");
+        assertThat(FilmSearchIndex.tokenize("  ")).isEmpty();
+    }
+
+    @Test
+    void shouldNotOverflowOnLargeWindow() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(1, "Дом у озера", null);
+        index.index(2, "Дом", null);
+
+        assertThat(index.search("дом", Integer.MAX_VALUE, 1)).containsExactly(2L);
+        assertThat(index.search("дом", 10, Integer.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void shouldLoadInBulkAndMergeWithIndexedFilms() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        index.index(2, "Дом", null);
+        index.index(5, "Ёлки", null);
+
+        FilmSearchIndex.Loader loader = index.loader();
+        loader.add(7, "Дом у озера", "Письма");
+        loader.add(1, "Дом", null);
+        loader.add(5, "Новый год", null);
+        int loaded = loader.finish();
+
+        assertThat(loaded).isEqualTo(3);
+        assertThat(index.search("дом", 10, 0)).containsExactly(1L, 2L, 7L);
+        assertThat(index.search("письма", 10, 0)).containsExactly(7L);
+        assertThat(index.search("елки", 10, 0)).isEmpty();
+        assertThat(index.search("год", 10, 0)).containsExactly(5L);
+    }
+}
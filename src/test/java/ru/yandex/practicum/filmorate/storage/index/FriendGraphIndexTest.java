@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendGraphIndexTest {
+
+    @Test
+    void shouldIntersectListsOfSimilarSize() {
+        long[] result = FriendGraphIndex.intersect(new long[]{1, 3, 5, 7, 9}, new long[]{2, 3, 4, 7, 10});
+
+        assertThat(result).containsExactly(3, 7);
+    }
+
+    @Test
+    void shouldIntersectSmallListWithHubByGalloping() {
+        long[] hub = LongStream.rangeClosed(1, 10_000).map(id -> id * 2).toArray();
+
+        long[] result = FriendGraphIndex.intersect(new long[]{3, 4, 5000, 19_999, 20_000, 30_000}, hub);
+
+        assertThat(result).containsExactly(4, 5000, 20_000);
+    }
+
+    @Test
+    void shouldKeepCommonFriendsInSyncWithUpdates() {
+        FriendGraphIndex index = new FriendGraphIndex();
+        FriendGraphIndex.Loader loader = index.reload();
+        loader.add(1, 10);
+        loader.add(1, 20);
+        loader.add(2, 20);
+        assertThat(loader.finish()).isEqualTo(3);
+
+        index.addFriend(2, 10);
+        index.removeFriend(1, 20);
+
+        assertThat(index.getCommonFriendIds(1, 2)).containsExactly(10);
+        assertThat(index.getCommonFriendIds(1, 3)).isEmpty();
+    }
+
+    @Test
+    void shouldLimitExploredNeighboursForHubUsers() {
+        FriendGraphIndex index = new FriendGraphIndex(2, 4);
+        for (long friend = 10; friend < 20; friend++) {
+            index.addFriend(1, friend);
+            index.addFriend(friend, 100);
+            index.addFriend(friend, 200 + friend);
+        }
+
+        List<FriendGraphIndex.Candidate> suggestions = index.suggest(1, 3);
+
+        assertThat(suggestions).first().isEqualTo(new FriendGraphIndex.Candidate(100, 2));
+        assertThat(suggestions).hasSize(3);
+    }
+
+    @Test
+    void shouldSampleFriendsOfFriendsAcrossWholeList() {
+        FriendGraphIndex index = new FriendGraphIndex(1, 2);
+        index.addFriend(1, 10);
+        for (long friend = 1; friend <= 6; friend++) {
+            index.addFriend(10, friend);
+        }
+
+        // Из друзей пользователя 10 смотрятся первый и средний, а не два первых
+        assertThat(index.suggest(1, 10)).containsExactly(new FriendGraphIndex.Candidate(4, 1));
+    }
+
+    @Test
+    void shouldNotPresizeSuggestionsFromRequestedCount() {
+        FriendGraphIndex index = new FriendGraphIndex();
+        index.addFriend(1, 2);
+        index.addFriend(2, 3);
+
+        assertThat(index.suggest(1, Integer.MAX_VALUE)).containsExactly(new FriendGraphIndex.Candidate(3, 1));
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeMatrixIndexTest {
+
+    @Test
+    void shouldRecommendFilmsOfMostSimilarUsers() {
+        LikeMatrixIndex index = new LikeMatrixIndex();
+        index.like(1, 1);
+        index.like(2, 1);
+        index.like(3, 1);
+        // Пользователь 2 совпадает по трём фильмам, пользователь 3 - по одному.
+        index.like(1, 2);
+        index.like(2, 2);
+        index.like(3, 2);
+        index.like(10, 2);
+        index.like(1, 3);
+        index.like(20, 3);
+        index.like(10, 3);
+
+        assertThat(index.recommend(1, 10)).containsExactly(10L, 20L);
+        assertThat(index.recommend(1, 1)).containsExactly(10L);
+        assertThat(index.recommend(4, 10)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepBothProjectionsInSync() {
+        LikeMatrixIndex index = new LikeMatrixIndex();
+
+        assertThat(index.like(5, 1)).isTrue();
+        assertThat(index.like(5, 1)).isFalse();
+        assertThat(index.getLikedFilmIds(1)).containsExactly(5);
+
+        assertThat(index.unlike(5, 1)).isTrue();
+        assertThat(index.unlike(5, 1)).isFalse();
+        assertThat(index.getLikedFilmIds(1)).isEmpty();
+    }
+
+    @Test
+    void shouldSplitWorkForUsersWithManyLikes() {
+        LikeMatrixIndex index = new LikeMatrixIndex();
+        LikeMatrixIndex.Loader loader = index.reload();
+        for (long film = 1; film <= 500; film++) {
+            loader.add(film, 1);
+            if (film % 2 == 0) {
+                loader.add(film, 2);
+            }
+        }
+        loader.add(1000, 2);
+        assertThat(loader.finish()).isEqualTo(751);
+
+        assertThat(index.getLikedFilmIds(2)).hasSize(251).startsWith(2, 4);
+        assertThat(index.recommend(1, 5)).containsExactly(1000L);
+    }
+
+    @Test
+    void shouldSampleLikersAcrossWholeListWhenCapped() {
+        LikeMatrixIndex index = new LikeMatrixIndex(50, 2, 1);
+        for (long user = 1; user <= 11; user++) {
+            index.like(1, user);
+        }
+        // Фильм 2 нравится только второй половине аккаунтов, первые id его не лайкали
+        for (long user = 6; user <= 10; user++) {
+            index.like(2, user);
+        }
+
+        assertThat(index.recommend(11, 10)).containsExactly(2L);
+        index.close();
+    }
+
+    @Test
+    void shouldScoreInOwnPoolAndNotPresizeFromCount() {
+        LikeMatrixIndex index = new LikeMatrixIndex(50, 10_000, 1);
+        index.like(1, 1);
+        index.like(1, 2);
+        index.like(2, 2);
+
+        assertThat(index.recommend(1, Integer.MAX_VALUE)).containsExactly(2L);
+        index.close();
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.inmemory;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorageContractTest;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.LikeMatrixIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryFilmStorageTest extends FilmStorageContractTest {
+
+    private InMemoryFilmStorage filmStorage;
+
+    @Override
+    protected FilmStorage createStorage() {
+        filmStorage = new InMemoryFilmStorage(new InMemoryMpaStorage(), new FilmPopularityIndex(),
+                new LikeMatrixIndex(), new FilmSearchIndex(), new ChangeVersions());
+        return filmStorage;
+    }
+
+    @Override
+    protected void createUser(long id) {
+    }
+
+    @Test
+    void shouldResolveMpaNameAndGenres() {
+        InMemoryGenreStorage genreStorage = new InMemoryGenreStorage(filmStorage);
+        Film film = Film.builder()
+                .name("Test Film")
+                .description("Test Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(120)
+                .mpa(Mpa.builder().id(3).build())
+                .build();
+        film.setGenres(List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()));
+        filmStorage.save(film);
+
+        assertThat(filmStorage.findById(film.getId()).orElseThrow().getMpa().getName()).isEqualTo("PG-13");
+        assertThat(genreStorage.getGenresByFilmIds(List.of(film.getId())).get(film.getId()))
+                .extracting(Genre::getName)
+                .containsExactly("Комедия", "Драма");
+    }
+}
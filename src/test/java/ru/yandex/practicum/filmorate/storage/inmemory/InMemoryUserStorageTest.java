@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.storage.inmemory;
+
+import ru.yandex.practicum.filmorate.storage.ChangeVersions;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorageContractTest;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraphIndex;
+
+class InMemoryUserStorageTest extends UserStorageContractTest {
+
+    @Override
+    protected UserStorage createStorage() {
+        return new InMemoryUserStorage(new FriendGraphIndex(), new ChangeVersions());
+    }
+}
@@ -0,0 +1,8 @@
+DELETE FROM film_genres;
+DELETE FROM likes;
+DELETE FROM friends;
+DELETE FROM films;
+DELETE FROM users;
+
+ALTER TABLE films ALTER COLUMN id RESTART WITH 1;
+ALTER TABLE users ALTER COLUMN id RESTART WITH 1;